@@ -0,0 +1,127 @@
+package com.nimbleways.springboilerplate.benchmark;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.services.implementations.ProductService;
+import com.nimbleways.springboilerplate.services.implementations.notification.INotificationDispatcher;
+import com.nimbleways.springboilerplate.services.implementations.product.ExpirableProductRule;
+import com.nimbleways.springboilerplate.services.implementations.product.IProductProcessing;
+import com.nimbleways.springboilerplate.services.implementations.product.NormalProductStrategy;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductProcessingMetrics;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.product.SeasonalProductStrategy;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+// Wiring for the benchmarks that run without Spring or a database. The ledger answers
+// from the product snapshot and never mutates it, so every invocation of a path stays
+// on the same branch for the whole run.
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public enum ProductPath {
+        NORMAL_IN_STOCK,
+        NORMAL_DELAYED,
+        SEASONAL_IN_SEASON,
+        SEASONAL_SEASON_ENDED,
+        SEASONAL_NOT_STARTED,
+        EXPIRABLE_VALID,
+        EXPIRABLE_EXPIRED;
+
+        Product product() {
+            LocalDate today = LocalDate.now();
+            return switch (this) {
+                case NORMAL_IN_STOCK -> new Product(1L, 15, 30, ProductType.NORMAL, "USB Cable", null, null, null);
+                case NORMAL_DELAYED -> new Product(2L, 10, 0, ProductType.NORMAL, "USB Dongle", null, null, null);
+                case SEASONAL_IN_SEASON -> new Product(3L, 15, 30, ProductType.SEASONAL, "Watermelon",
+                        null, today.minusDays(2), today.plusDays(58));
+                case SEASONAL_SEASON_ENDED -> new Product(4L, 90, 0, ProductType.SEASONAL, "Strawberry",
+                        null, today.minusDays(20), today.plusDays(10));
+                case SEASONAL_NOT_STARTED -> new Product(5L, 15, 30, ProductType.SEASONAL, "Grapes",
+                        null, today.plusDays(180), today.plusDays(240));
+                case EXPIRABLE_VALID -> new Product(6L, 15, 30, ProductType.EXPIRABLE, "Butter",
+                        today.plusDays(26), null, null);
+                case EXPIRABLE_EXPIRED -> new Product(7L, 90, 6, ProductType.EXPIRABLE, "Milk",
+                        today.minusDays(2), null, null);
+            };
+        }
+    }
+
+    // Meters are recorded like in production, into a registry nobody reads
+    private static final ProductProcessingMetrics METRICS = new ProductProcessingMetrics(new SimpleMeterRegistry());
+
+    static ProductService productService(IStockLedger ledger, INotificationDispatcher dispatcher) {
+        ProductService productService = new ProductService();
+        ReflectionTestUtils.setField(productService, "stock", ledger);
+        ReflectionTestUtils.setField(productService, "ns", dispatcher);
+        ReflectionTestUtils.setField(productService, "metrics", METRICS);
+        return productService;
+    }
+
+    static List<IProductProcessing> strategies(IStockLedger ledger, ProductService productService) {
+        return List.of(
+                new NormalProductStrategy(ledger, productService, METRICS),
+                new SeasonalProductStrategy(ledger, productService, METRICS),
+                new ExpirableProductRule(ledger, productService));
+    }
+
+    static ProductRuleFactory productRuleFactory(IStockLedger ledger, INotificationDispatcher dispatcher) {
+        return new ProductRuleFactory(strategies(ledger, productService(ledger, dispatcher)), METRICS);
+    }
+
+    static final class SnapshotStockLedger implements IStockLedger {
+
+        @Override
+        public boolean tryDecrement(Product product) {
+            return product.getAvailable() > 0;
+        }
+
+        @Override
+        public boolean tryDecrementIfNotExpired(Product product, LocalDate today) {
+            return product.getAvailable() > 0 && product.getExpiryDate().isAfter(today);
+        }
+
+        @Override
+        public boolean tryDecrementIfInSeason(Product product, LocalDate today) {
+            return product.getAvailable() > 0
+                    && today.isAfter(product.getSeasonStartDate())
+                    && today.isBefore(product.getSeasonEndDate());
+        }
+
+        @Override
+        public void clear(Product product) {
+        }
+
+        @Override
+        public void restocked(Map<Long, Integer> availableById) {
+        }
+    }
+
+    // Counts instead of discarding, so the JIT cannot drop the notification calls
+    static final class CountingNotificationDispatcher implements INotificationDispatcher {
+
+        long sent;
+
+        @Override
+        public void sendDelayNotification(int leadTime, String productName) {
+            sent++;
+        }
+
+        @Override
+        public void sendOutOfStockNotification(String productName) {
+            sent++;
+        }
+
+        @Override
+        public void sendExpirationNotification(String productName, LocalDate expiryDate) {
+            sent++;
+        }
+    }
+}
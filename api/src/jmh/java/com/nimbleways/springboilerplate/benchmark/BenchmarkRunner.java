@@ -0,0 +1,103 @@
+package com.nimbleways.springboilerplate.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Runs the benchmarks selected by jmh.include and writes the JMH JSON result. With
+// jmh.saveBaseline=true the result becomes the new baseline; otherwise it is compared
+// with the baseline and the run fails when a score is worse by more than jmh.threshold.
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path result = Path.of(System.getProperty("jmh.result", "target/jmh-result.json"));
+        Path baseline = Path.of(System.getProperty("jmh.baseline", "src/jmh/baseline.json"));
+        double threshold = Double.parseDouble(System.getProperty("jmh.threshold", "0.10"));
+        boolean saveBaseline = Boolean.parseBoolean(System.getProperty("jmh.saveBaseline", "false"));
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        new Runner(new OptionsBuilder()
+                .include(System.getProperty("jmh.include", ".*Benchmark.*"))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                .build())
+                .run();
+
+        if (saveBaseline) {
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline saved to " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + ", skipping comparison");
+            return;
+        }
+
+        List<String> regressions = compare(read(baseline), read(result), threshold);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.err::println);
+            System.exit(1);
+        }
+        System.out.println("No regression above " + Math.round(threshold * 100) + "% against " + baseline);
+    }
+
+    static List<String> compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        current.forEach((key, score) -> {
+            Score reference = baseline.get(key);
+            if (reference == null || reference.value() == 0) {
+                return;
+            }
+            double change = score.worseningAgainst(reference);
+            if (change > threshold) {
+                regressions.add(String.format("REGRESSION %s: %.3f -> %.3f %s (%+.1f%%)",
+                        key, reference.value(), score.value(), score.unit(), change * 100));
+            }
+        });
+        return regressions;
+    }
+
+    static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+            JsonNode params = run.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            JsonNode metric = run.get("primaryMetric");
+            scores.put(key.toString(), new Score(run.get("mode").asText(),
+                    metric.get("score").asDouble(), metric.get("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    record Score(String mode, double value, String unit) {
+
+        // Throughput is better when higher, every other mode measures time
+        double worseningAgainst(Score reference) {
+            double delta = (value - reference.value) / reference.value;
+            return "thrpt".equals(mode) ? -delta : delta;
+        }
+    }
+}
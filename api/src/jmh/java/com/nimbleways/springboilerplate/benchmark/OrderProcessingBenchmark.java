@@ -0,0 +1,115 @@
+package com.nimbleways.springboilerplate.benchmark;
+
+import com.nimbleways.springboilerplate.Application;
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end processOrder on the full Spring context and an in-memory H2 database, once
+// with the database stock ledger and once with the in-memory stock engine. Every
+// iteration is a batch of ORDERS_PER_ITERATION calls, each on a fresh order holding the
+// same products, so no call is answered as already processed and nothing is reset
+// between calls; the score is the time of the whole batch.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = OrderProcessingBenchmark.ORDERS_PER_ITERATION)
+@Measurement(iterations = 5, batchSize = OrderProcessingBenchmark.ORDERS_PER_ITERATION)
+@Fork(1)
+public class OrderProcessingBenchmark {
+
+    static final int ORDERS_PER_ITERATION = 100;
+
+    private static final int AVAILABLE = 1_000_000_000;
+
+    @Param({"database", "in-memory"})
+    String stockMode;
+
+    @Param({"1", "10", "100", "1000"})
+    int orderSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderProcessingService orderProcessingService;
+    private OrderRepository orderRepository;
+    private List<Product> products;
+    private List<Long> orderIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProductRepository productRepository;
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + stockMode + "-" + orderSize,
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "stock.mode=" + stockMode,
+                        "notifications.dispatch.mode=sync",
+                        "logging.level.root=WARN")
+                .run();
+        orderProcessingService = context.getBean(OrderProcessingService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        orderRepository = context.getBean(OrderRepository.class);
+
+        BenchmarkFixtures.ProductPath[] paths = BenchmarkFixtures.ProductPath.values();
+        products = new ArrayList<>(orderSize);
+        for (int i = 0; i < orderSize; i++) {
+            Product product = paths[i % paths.length].product();
+            product.setId(null);
+            product.setName(product.getName() + " " + i);
+            if (product.getAvailable() > 0) {
+                product.setAvailable(AVAILABLE);
+            }
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Setup(Level.Iteration)
+    public void createOrders() {
+        List<Order> orders = new ArrayList<>(ORDERS_PER_ITERATION);
+        for (int i = 0; i < ORDERS_PER_ITERATION; i++) {
+            Order order = new Order();
+            order.setItems(new HashSet<>(products));
+            orders.add(order);
+        }
+        orderIds = orderRepository.saveAll(orders).stream().map(Order::getId).toList();
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProcessOrderResponse processOrder() {
+        return orderProcessingService.processOrder(orderIds.get(next++));
+    }
+}
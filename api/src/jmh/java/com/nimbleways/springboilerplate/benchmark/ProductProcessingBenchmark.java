@@ -0,0 +1,49 @@
+package com.nimbleways.springboilerplate.benchmark;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.implementations.product.IProductProcessing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// One IProductProcessing.process path per parameter, without Spring proxies or a database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductProcessingBenchmark {
+
+    @Param
+    BenchmarkFixtures.ProductPath path;
+
+    private BenchmarkFixtures.CountingNotificationDispatcher dispatcher;
+    private IProductProcessing strategy;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        dispatcher = new BenchmarkFixtures.CountingNotificationDispatcher();
+        product = path.product();
+        strategy = BenchmarkFixtures.productRuleFactory(new BenchmarkFixtures.SnapshotStockLedger(), dispatcher)
+                .getStrategy(product.getType());
+    }
+
+    @Benchmark
+    public void process(Blackhole blackhole) {
+        strategy.process(product);
+        blackhole.consume(dispatcher.sent);
+    }
+}
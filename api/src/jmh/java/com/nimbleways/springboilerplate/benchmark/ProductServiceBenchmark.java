@@ -0,0 +1,67 @@
+package com.nimbleways.springboilerplate.benchmark;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.implementations.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private BenchmarkFixtures.CountingNotificationDispatcher dispatcher;
+    private ProductService productService;
+    private Product delayed;
+    private Product seasonEnded;
+    private Product seasonNotStarted;
+    private Product expired;
+
+    @Setup
+    public void setUp() {
+        dispatcher = new BenchmarkFixtures.CountingNotificationDispatcher();
+        productService = BenchmarkFixtures.productService(new BenchmarkFixtures.SnapshotStockLedger(), dispatcher);
+        delayed = BenchmarkFixtures.ProductPath.NORMAL_DELAYED.product();
+        seasonEnded = BenchmarkFixtures.ProductPath.SEASONAL_SEASON_ENDED.product();
+        seasonNotStarted = BenchmarkFixtures.ProductPath.SEASONAL_NOT_STARTED.product();
+        expired = BenchmarkFixtures.ProductPath.EXPIRABLE_EXPIRED.product();
+    }
+
+    @Benchmark
+    public void notifyDelay(Blackhole blackhole) {
+        productService.notifyDelay(delayed.getLeadTime(), delayed);
+        blackhole.consume(dispatcher.sent);
+    }
+
+    @Benchmark
+    public void handleSeasonalProductSeasonEnded(Blackhole blackhole) {
+        productService.handleSeasonalProduct(seasonEnded);
+        blackhole.consume(dispatcher.sent);
+    }
+
+    @Benchmark
+    public void handleSeasonalProductNotStarted(Blackhole blackhole) {
+        productService.handleSeasonalProduct(seasonNotStarted);
+        blackhole.consume(dispatcher.sent);
+    }
+
+    @Benchmark
+    public void handleExpiredProduct(Blackhole blackhole) {
+        productService.handleExpiredProduct(expired);
+        blackhole.consume(dispatcher.sent);
+    }
+}
@@ -0,0 +1,52 @@
+package com.nimbleways.springboilerplate.benchmark;
+
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.services.implementations.product.IProductProcessing;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of parsing a stored type (now done once per row load, by ProductTypeConverter) and
+// of the per-line strategy lookup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyDispatchBenchmark {
+
+    @Param({"NORMAL", "SEASONAL", "EXPIRABLE"})
+    ProductType type;
+
+    private ProductRuleFactory factory;
+    private String storedType;
+
+    @Setup
+    public void setUp() {
+        storedType = type.name().toLowerCase();
+        factory = BenchmarkFixtures.productRuleFactory(new BenchmarkFixtures.SnapshotStockLedger(),
+                new BenchmarkFixtures.CountingNotificationDispatcher());
+    }
+
+    @Benchmark
+    public ProductType parseType() {
+        return ProductType.from(storedType);
+    }
+
+    @Benchmark
+    public IProductProcessing dispatch() {
+        return factory.getStrategy(type);
+    }
+}
@@ -0,0 +1,109 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Seeds a catalogue close to production: mostly normal products, a fifth seasonal and a
+// fifth expirable, with some out of stock, out of season or expired. Order lines favour
+// a small set of popular products, so hot rows see the same contention as in real traffic.
+class LoadTestDataSeeder {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    LoadTestDataSeeder(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.random = new Random(seed);
+    }
+
+    List<Long> seed(int productCount, int orderCount, int maxItemsPerOrder) {
+        jdbcTemplate.update("delete from order_items");
+        jdbcTemplate.update("delete from orders");
+        jdbcTemplate.update("delete from processed_orders");
+        jdbcTemplate.update("delete from products");
+
+        insertProducts(productCount);
+        return insertOrders(orderCount, productCount, maxItemsPerOrder);
+    }
+
+    private void insertProducts(int productCount) {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= productCount; id++) {
+            rows.add(product(id, today));
+            if (rows.size() == BATCH_SIZE) {
+                insertProductBatch(rows);
+            }
+        }
+        insertProductBatch(rows);
+    }
+
+    private Object[] product(long id, LocalDate today) {
+        int available = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(200);
+        int leadTime = random.nextInt(15);
+        double kind = random.nextDouble();
+        if (kind < 0.6) {
+            return new Object[]{id, leadTime, available, "NORMAL", "Product " + id, null, null, null};
+        }
+        if (kind < 0.8) {
+            LocalDate start = today.plusDays(random.nextInt(120) - 90);
+            LocalDate end = start.plusDays(30 + random.nextInt(90));
+            return new Object[]{id, leadTime, available, "SEASONAL", "Seasonal " + id,
+                    null, Date.valueOf(start), Date.valueOf(end)};
+        }
+        LocalDate expiry = today.plusDays(random.nextInt(60) - 10);
+        return new Object[]{id, leadTime, available, "EXPIRABLE", "Expirable " + id,
+                Date.valueOf(expiry), null, null};
+    }
+
+    private void insertProductBatch(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into products (id, lead_time, available, type, name, expiry_date, "
+                + "season_start_date, season_end_date) values (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private List<Long> insertOrders(int orderCount, int productCount, int maxItemsPerOrder) {
+        List<Long> orderIds = new ArrayList<>(orderCount);
+        List<Object[]> orders = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> items = new ArrayList<>(BATCH_SIZE * maxItemsPerOrder);
+        for (long orderId = 1; orderId <= orderCount; orderId++) {
+            orderIds.add(orderId);
+            orders.add(new Object[]{orderId});
+            for (long productId : orderLines(productCount, maxItemsPerOrder)) {
+                items.add(new Object[]{orderId, productId});
+            }
+            if (orders.size() == BATCH_SIZE) {
+                insertOrderBatch(orders, items);
+            }
+        }
+        insertOrderBatch(orders, items);
+        return orderIds;
+    }
+
+    // Squaring a uniform draw skews picks towards low ids, the "popular" products
+    private Set<Long> orderLines(int productCount, int maxItemsPerOrder) {
+        int lines = 1 + random.nextInt(maxItemsPerOrder);
+        Set<Long> productIds = new LinkedHashSet<>();
+        while (productIds.size() < Math.min(lines, productCount)) {
+            double draw = random.nextDouble();
+            productIds.add(1 + (long) (draw * draw * productCount));
+        }
+        return productIds;
+    }
+
+    private void insertOrderBatch(List<Object[]> orders, List<Object[]> items) {
+        jdbcTemplate.batchUpdate("insert into orders (id) values (?)", orders);
+        jdbcTemplate.batchUpdate("insert into order_items (order_id, product_id) values (?, ?)", items);
+        orders.clear();
+        items.clear();
+    }
+}
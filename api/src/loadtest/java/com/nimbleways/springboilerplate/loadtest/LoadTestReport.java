@@ -0,0 +1,57 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+record LoadTestReport(int targetRate,
+                      long completed,
+                      long errors,
+                      long maxInFlight,
+                      long measuredNanos,
+                      Histogram latency,
+                      Histogram serviceTime) {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    double throughput() {
+        return completed / (measuredNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    double errorRate() {
+        return completed == 0 ? 0 : errors / (double) completed;
+    }
+
+    void print(PrintStream out) {
+        out.printf("Target rate      : %d req/s%n", targetRate);
+        out.printf("Throughput       : %.1f req/s%n", throughput());
+        out.printf("Requests         : %d (%d errors, %.3f%%)%n", completed, errors, errorRate() * 100);
+        out.printf("Max in flight    : %d%n", maxInFlight);
+        out.printf("%-10s %14s %14s%n", "percentile", "latency (ms)", "service (ms)");
+        for (double percentile : PERCENTILES) {
+            out.printf("%-10s %14.2f %14.2f%n", "p" + percentile,
+                    latency.getValueAtPercentile(percentile) / MICROS_PER_MILLI,
+                    serviceTime.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+        }
+        out.printf("%-10s %14.2f %14.2f%n", "max",
+                latency.getMaxValue() / MICROS_PER_MILLI, serviceTime.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    // .hgrm files can be plotted with the HdrHistogram plotter to compare runs
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        writeHistogram(latency, directory.resolve("latency.hgrm"));
+        writeHistogram(serviceTime, directory.resolve("service-time.hgrm"));
+    }
+
+    private static void writeHistogram(Histogram histogram, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+}
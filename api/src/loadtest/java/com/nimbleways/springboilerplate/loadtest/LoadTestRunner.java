@@ -0,0 +1,54 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import com.nimbleways.springboilerplate.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Starts the API on a random port with a file-backed H2 database, seeds products and
+// orders, then drives POST /api/orders/{id}/processOrder at loadtest.rate requests per
+// second. Each request uses a different order, since repeats are answered from the
+// idempotency cache. Results are printed and written as .hgrm files to
+// loadtest.outputDirectory.
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        String database = settings.outputDirectory().toAbsolutePath().resolve("orders").toString();
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:file:" + database,
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "stock.mode=" + settings.stockMode(),
+                        "logging.level.root=WARN")
+                .run(args)) {
+
+            List<Long> orderIds = new LoadTestDataSeeder(context.getBean(JdbcTemplate.class), settings.seed())
+                    .seed(settings.products(), settings.orderCount(), settings.maxItemsPerOrder());
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "");
+
+            ExecutorService executor = Executors.newFixedThreadPool(settings.httpThreads());
+            try {
+                LoadTestReport report = new OpenModelLoadGenerator(baseUrl, executor)
+                        .run(orderIds, settings.rate(), settings.warmup(), settings.duration());
+                report.print(System.out);
+                report.write(settings.outputDirectory());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+record LoadTestSettings(int rate,
+                        Duration warmup,
+                        Duration duration,
+                        int products,
+                        int maxItemsPerOrder,
+                        int httpThreads,
+                        String stockMode,
+                        long seed,
+                        Path outputDirectory) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.rate", 100),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT10S")),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                Integer.getInteger("loadtest.products", 2000),
+                Integer.getInteger("loadtest.maxItemsPerOrder", 8),
+                Integer.getInteger("loadtest.httpThreads", 32),
+                System.getProperty("loadtest.stockMode", "database"),
+                Long.getLong("loadtest.seed", 42L),
+                Path.of(System.getProperty("loadtest.outputDirectory", "target/loadtest")));
+    }
+
+    int orderCount() {
+        return (int) Math.ceil(rate * (warmup.toMillis() + duration.toMillis()) / 1000.0);
+    }
+}
@@ -0,0 +1,92 @@
+package com.nimbleways.springboilerplate.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Sends requests on a fixed schedule, whatever the response times are (open model). The
+// latency histogram measures from the time a request was due, not from when it was sent,
+// so a stalled server shows up in the percentiles instead of silently lowering the rate
+// (coordinated omission). The service-time histogram measures from the actual send.
+class OpenModelLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong maxInFlight = new AtomicLong();
+
+    OpenModelLoadGenerator(String baseUrl, ExecutorService executor) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    LoadTestReport run(List<Long> orderIds, int rate, Duration warmup, Duration duration) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long warmupRequests = warmup.toSeconds() * rate;
+        long totalRequests = Math.min(orderIds.size(), warmupRequests + duration.toSeconds() * rate);
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[(int) totalRequests];
+
+        long start = System.nanoTime();
+        long measureStart = start + warmupRequests * intervalNanos;
+        for (int i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            calls[i] = send(orderIds.get(i), intendedStart, intendedStart >= measureStart);
+        }
+        CompletableFuture.allOf(calls).join();
+        long measuredNanos = System.nanoTime() - measureStart;
+
+        return new LoadTestReport(rate, completed.get(), errors.get(), maxInFlight.get(),
+                measuredNanos, latency, serviceTime);
+    }
+
+    private CompletableFuture<?> send(Long orderId, long intendedStart, boolean measured) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + orderId + "/processOrder"))
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long sentAt = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    long now = System.nanoTime();
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        record(now, intendedStart, sentAt, failure == null && response.statusCode() < 400);
+                    }
+                    return null;
+                });
+    }
+
+    private void record(long now, long intendedStart, long sentAt, boolean success) {
+        completed.incrementAndGet();
+        if (!success) {
+            errors.incrementAndGet();
+        }
+        latency.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(now - intendedStart)));
+        serviceTime.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(now - sentAt)));
+    }
+}
@@ -1,24 +1,86 @@
 package com.nimbleways.springboilerplate.contollers;
 
+import com.nimbleways.springboilerplate.dto.product.OrderJobResponse;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.entities.OrderJob;
+import com.nimbleways.springboilerplate.services.implementations.cluster.PartitionNotOwnedException;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobQueue;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobStatus;
 import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderQueueFullException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
 
     private final OrderProcessingService orderProcessingService;
+    private final ObjectProvider<OrderJobQueue> orderJobQueue;
 
-    public OrderController(OrderProcessingService orderProcessingService) {
+    public OrderController(OrderProcessingService orderProcessingService, ObjectProvider<OrderJobQueue> orderJobQueue) {
         this.orderProcessingService = orderProcessingService;
+        this.orderJobQueue = orderJobQueue;
     }
 
+    // In async mode the order is queued and 202 Accepted points to the job to poll
     @PostMapping("{orderId}/processOrder")
-    public ProcessOrderResponse processOrder(@PathVariable Long orderId) {
-        return orderProcessingService.processOrder(orderId);
+    public ResponseEntity<?> processOrder(@PathVariable Long orderId) {
+        OrderJobQueue queue = orderJobQueue.getIfAvailable();
+        if (queue == null) {
+            return ResponseEntity.ok(orderProcessingService.processOrder(orderId));
+        }
+        OrderJob job = queue.enqueue(orderId);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/orders/jobs/{id}").buildAndExpand(job.getId()).toUri())
+                .body(toResponse(job));
+    }
+
+    @GetMapping("jobs/{jobId}")
+    public OrderJobResponse getJob(@PathVariable Long jobId) {
+        OrderJobQueue queue = orderJobQueue.getIfAvailable();
+        return Optional.ofNullable(queue)
+                .flatMap(q -> q.find(jobId))
+                .map(OrderController::toResponse)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + jobId));
+    }
+
+    @PostMapping("processOrders")
+    public List<ProcessOrderResponse> processOrders(@RequestBody List<Long> orderIds) {
+        return orderProcessingService.processOrders(orderIds);
+    }
+
+    @ExceptionHandler(OrderQueueFullException.class)
+    public ResponseEntity<String> queueFull(OrderQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(PartitionNotOwnedException.class)
+    public ResponseEntity<String> partitionNotOwned(PartitionNotOwnedException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    private static OrderJobResponse toResponse(OrderJob job) {
+        ProcessOrderResponse result = job.getStatus() == OrderJobStatus.SUCCEEDED
+                ? new ProcessOrderResponse(job.getOrderId())
+                : null;
+        return new OrderJobResponse(job.getId(), job.getOrderId(), job.getStatus(), result, job.getError());
     }
 }
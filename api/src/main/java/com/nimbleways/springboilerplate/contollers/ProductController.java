@@ -0,0 +1,134 @@
+package com.nimbleways.springboilerplate.contollers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbleways.springboilerplate.dto.product.ProductCatalogueFilter;
+import com.nimbleways.springboilerplate.dto.product.ProductImportReport;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductCatalogueService;
+import com.nimbleways.springboilerplate.services.implementations.product.exporter.ProductExportFormat;
+import com.nimbleways.springboilerplate.services.implementations.product.exporter.ProductExportService;
+import com.nimbleways.springboilerplate.services.implementations.product.importer.ProductImportFormat;
+import com.nimbleways.springboilerplate.services.implementations.product.importer.ProductImportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
+
+// The page is written as the rows are read, so its size does not bound memory:
+// {"items":[...],"nextCursor":<id or null>}
+@RestController
+@RequestMapping("/products")
+public class ProductController {
+
+    private final ProductCatalogueService productCatalogueService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final ObjectMapper objectMapper;
+
+    public ProductController(ProductCatalogueService productCatalogueService,
+                             ProductImportService productImportService,
+                             ProductExportService productExportService,
+                             ObjectMapper objectMapper) {
+        this.productCatalogueService = productCatalogueService;
+        this.productImportService = productImportService;
+        this.productExportService = productExportService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> listProducts(
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate notExpiredOn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inSeasonOn,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + ProductCatalogueService.DEFAULT_PAGE_SIZE) int limit) {
+        ProductCatalogueFilter filter = new ProductCatalogueFilter(parseType(type), inStock, notExpiredOn, inSeasonOn);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeArrayFieldStart("items");
+                Long nextCursor = productCatalogueService.forEachInPage(filter, after, limit, product -> {
+                    try {
+                        json.writeObject(product);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeObjectField("nextCursor", nextCursor);
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // The body is read from the request stream as it arrives, never as a whole
+    @PostMapping(value = "import", consumes = {ProductImportFormat.NDJSON_MEDIA_TYPE, ProductImportFormat.CSV_MEDIA_TYPE})
+    public ProductImportReport importProducts(@RequestHeader("Content-Type") MediaType contentType,
+                                              HttpServletRequest request) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return productImportService.importProducts(reader, ProductImportFormat.fromMediaType(contentType));
+        }
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(defaultValue = "ndjson") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        ProductExportFormat exportFormat = parseFormat(format);
+        String fileName = "products" + exportFormat.extension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    productExportService.export(exportFormat, compressed);
+                }
+            } else {
+                productExportService.export(exportFormat, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    private static ProductExportFormat parseFormat(String format) {
+        try {
+            return ProductExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format " + format);
+        }
+    }
+
+    private static ProductType parseType(String type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return ProductType.from(type);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown product type " + type);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobStatus;
+
+// result is set once the job has succeeded, error once it has failed
+public record OrderJobResponse(Long jobId,
+                               Long orderId,
+                               OrderJobStatus status,
+                               ProcessOrderResponse result,
+                               String error) {
+}
@@ -0,0 +1,13 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import com.nimbleways.springboilerplate.enums.ProductType;
+
+import java.time.LocalDate;
+
+// Null fields do not filter. Products without an expiry date or a season pass the
+// corresponding date filter.
+public record ProductCatalogueFilter(ProductType type,
+                                     boolean inStock,
+                                     LocalDate notExpiredOn,
+                                     LocalDate inSeasonOn) {
+}
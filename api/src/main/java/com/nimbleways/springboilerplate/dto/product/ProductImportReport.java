@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import java.util.List;
+
+// Only the first rejections are listed; rejected counts them all
+public record ProductImportReport(long accepted, long rejected, List<RejectedRow> rejections) {
+
+    public record RejectedRow(long line, String reason) {
+    }
+}
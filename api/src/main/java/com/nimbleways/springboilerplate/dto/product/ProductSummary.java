@@ -0,0 +1,15 @@
+package com.nimbleways.springboilerplate.dto.product;
+
+import com.nimbleways.springboilerplate.enums.ProductType;
+
+import java.time.LocalDate;
+
+public record ProductSummary(Long id,
+                             String name,
+                             ProductType type,
+                             Integer available,
+                             Integer leadTime,
+                             LocalDate expiryDate,
+                             LocalDate seasonStartDate,
+                             LocalDate seasonEndDate) {
+}
@@ -0,0 +1,29 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "cluster_nodes")
+public class ClusterNode implements Persistable<String> {
+    @Id
+    @Column(name = "node_id")
+    private String id;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private Instant heartbeatAt;
+
+    // Inserted on the first heartbeat only, later heartbeats update the row in place
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
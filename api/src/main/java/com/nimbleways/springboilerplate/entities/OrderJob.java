@@ -0,0 +1,44 @@
+package com.nimbleways.springboilerplate.entities;
+
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobStatus;
+import lombok.*;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "order_jobs", indexes = @Index(name = "idx_order_jobs_status_id", columnList = "status, id"))
+public class OrderJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // Product partition whose owner runs the job in cluster mode, null for any node
+    @Column(name = "partition_no")
+    private Integer partition;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OrderJobStatus status;
+
+    @Column(name = "error")
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+}
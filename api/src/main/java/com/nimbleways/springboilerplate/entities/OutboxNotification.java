@@ -0,0 +1,45 @@
+package com.nimbleways.springboilerplate.entities;
+
+import com.nimbleways.springboilerplate.services.implementations.notification.NotificationType;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "notification_outbox")
+public class OutboxNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private NotificationType type;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "lead_time")
+    private Integer leadTime;
+
+    @Column(name = "expiry_date")
+    private LocalDate expiryDate;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Set once the row reached the attempt limit; the relay no longer picks it up
+    @Column(name = "failed_at")
+    private Instant failedAt;
+}
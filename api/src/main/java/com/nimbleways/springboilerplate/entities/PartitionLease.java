@@ -0,0 +1,33 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "partition_leases")
+public class PartitionLease implements Persistable<Integer> {
+    @Id
+    @Column(name = "partition_no")
+    private Integer id;
+
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    // Leases are created once, free, by whichever node starts first; they are then only
+    // changed by the conditional updates of PartitionLeaseRepository.
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
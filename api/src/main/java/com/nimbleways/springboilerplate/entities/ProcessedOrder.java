@@ -0,0 +1,30 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "processed_orders")
+public class ProcessedOrder implements Persistable<Long> {
+    @Id
+    @Column(name = "order_id")
+    private Long id;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    // Markers are only ever inserted: a duplicate must fail on the primary key
+    // instead of being merged into the existing row.
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
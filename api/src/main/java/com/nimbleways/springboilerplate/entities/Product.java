@@ -1,17 +1,22 @@
 package com.nimbleways.springboilerplate.entities;
 
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCacheListener;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 
 import javax.persistence.*;
 
 @Entity
+@EntityListeners(ProductCacheListener.class)
+@DynamicUpdate
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_type_id", columnList = "type, id"))
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -25,7 +30,8 @@ public class Product {
     private Integer available;
 
     @Column(name = "type")
-    private String type;
+    @Convert(converter = ProductTypeConverter.class)
+    private ProductType type;
 
     @Column(name = "name")
     private String name;
@@ -0,0 +1,36 @@
+package com.nimbleways.springboilerplate.entities;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+import javax.persistence.*;
+
+// One slot of the stock of a sharded product; the product's stock is the sum of its slots
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(ProductStockShard.Key.class)
+@Table(name = "product_stock_shards")
+public class ProductStockShard {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "slot")
+    private Integer slot;
+
+    @Column(name = "available", nullable = false)
+    private Integer available;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Integer slot;
+    }
+}
@@ -0,0 +1,23 @@
+package com.nimbleways.springboilerplate.entities;
+
+import com.nimbleways.springboilerplate.enums.ProductType;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+// Stored values are parsed once, when the row is loaded: an unknown type fails the load
+// instead of an order halfway through. Reading stays case-insensitive for existing rows,
+// writing always stores the enum name.
+@Converter
+public class ProductTypeConverter implements AttributeConverter<ProductType, String> {
+
+    @Override
+    public String convertToDatabaseColumn(ProductType type) {
+        return type == null ? null : type.name();
+    }
+
+    @Override
+    public ProductType convertToEntityAttribute(String value) {
+        return value == null ? null : ProductType.from(value);
+    }
+}
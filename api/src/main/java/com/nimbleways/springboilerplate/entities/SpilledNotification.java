@@ -0,0 +1,34 @@
+package com.nimbleways.springboilerplate.entities;
+
+import com.nimbleways.springboilerplate.services.implementations.notification.NotificationType;
+import lombok.*;
+
+import java.time.LocalDate;
+
+import javax.persistence.*;
+
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "notification_spill")
+public class SpilledNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private NotificationType type;
+
+    @Column(name = "product_name")
+    private String productName;
+
+    @Column(name = "lead_time")
+    private Integer leadTime;
+
+    @Column(name = "expiry_date")
+    private LocalDate expiryDate;
+}
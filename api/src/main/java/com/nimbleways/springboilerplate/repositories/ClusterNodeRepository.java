@@ -0,0 +1,23 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.ClusterNode;
+import java.time.Instant;
+
+public interface ClusterNodeRepository extends JpaRepository<ClusterNode, String> {
+
+    long countByHeartbeatAtAfter(Instant after);
+
+    @Modifying
+    @Query("update ClusterNode n set n.heartbeatAt = :now where n.id = :node")
+    int touch(@Param("node") String node, @Param("now") Instant now);
+
+    // deleteById would skip the row, the entity always reporting itself as new
+    @Modifying
+    @Query("delete from ClusterNode n where n.id = :node")
+    int deleteNode(@Param("node") String node);
+}
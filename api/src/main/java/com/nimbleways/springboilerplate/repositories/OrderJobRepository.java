@@ -0,0 +1,48 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.OrderJob;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobStatus;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+public interface OrderJobRepository extends JpaRepository<OrderJob, Long> {
+
+    long countByStatus(OrderJobStatus status);
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED: concurrent workers each claim a different job
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select j from OrderJob j where j.status = :status order by j.id")
+    List<OrderJob> lockNext(@Param("status") OrderJobStatus status, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select j from OrderJob j where j.status = :status and j.partition is null order by j.id")
+    List<OrderJob> lockNextUnrouted(@Param("status") OrderJobStatus status, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select j from OrderJob j where j.status = :status"
+            + " and (j.partition is null or j.partition in :partitions) order by j.id")
+    List<OrderJob> lockNextIn(@Param("status") OrderJobStatus status,
+                              @Param("partitions") Collection<Integer> partitions,
+                              Pageable pageable);
+
+    @Modifying
+    @Query("update OrderJob j set j.status = :queued, j.startedAt = null"
+            + " where j.status = :running and j.startedAt < :startedBefore")
+    int requeueStuck(@Param("queued") OrderJobStatus queued,
+                     @Param("running") OrderJobStatus running,
+                     @Param("startedBefore") Instant startedBefore);
+}
@@ -1,11 +1,26 @@
 package com.nimbleways.springboilerplate.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.nimbleways.springboilerplate.entities.Order;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface OrderRepository extends JpaRepository<Order, UUID> {
     Optional<Order> findById(Long orderId);
+
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(Long orderId);
+
+    @EntityGraph(attributePaths = "items")
+    List<Order> findDistinctByIdIn(Collection<Long> orderIds);
+
+    // Empty when the order does not exist, a single null when it has no items
+    @Query("select p.id from Order o left join o.items p where o.id = :orderId")
+    List<Long> findItemIdsById(@Param("orderId") Long orderId);
 }
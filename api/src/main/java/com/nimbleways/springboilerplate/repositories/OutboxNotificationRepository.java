@@ -0,0 +1,21 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.nimbleways.springboilerplate.entities.OutboxNotification;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+public interface OutboxNotificationRepository extends JpaRepository<OutboxNotification, Long> {
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED: concurrent relays each take a disjoint batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select o from OutboxNotification o where o.failedAt is null order by o.id")
+    List<OutboxNotification> lockNextBatch(Pageable pageable);
+}
@@ -0,0 +1,33 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.PartitionLease;
+import java.time.Instant;
+import java.util.List;
+
+public interface PartitionLeaseRepository extends JpaRepository<PartitionLease, Integer> {
+
+    List<PartitionLease> findAllByOrderById();
+
+    // Renews a lease held by the node, or takes over a free or expired one. The condition
+    // is checked by the update itself, so two nodes can never both acquire a lease.
+    @Modifying
+    @Query("update PartitionLease l set l.owner = :node, l.expiresAt = :until"
+            + " where l.id = :partition and (l.owner = :node or l.owner is null or l.expiresAt < :now)")
+    int tryAcquire(@Param("partition") int partition,
+                   @Param("node") String node,
+                   @Param("now") Instant now,
+                   @Param("until") Instant until);
+
+    @Modifying
+    @Query("update PartitionLease l set l.owner = null, l.expiresAt = null where l.id = :partition and l.owner = :node")
+    int release(@Param("partition") int partition, @Param("node") String node);
+
+    @Modifying
+    @Query("update PartitionLease l set l.owner = null, l.expiresAt = null where l.owner = :node")
+    int releaseAll(@Param("node") String node);
+}
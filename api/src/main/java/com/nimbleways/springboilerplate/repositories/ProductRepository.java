@@ -1,13 +1,86 @@
 package com.nimbleways.springboilerplate.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.nimbleways.springboilerplate.dto.product.ProductSummary;
 import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface ProductRepository extends JpaRepository<Product, UUID> {
     Optional<Product> findById(Long productId);
 
     Optional<Product> findFirstByName(String name);
+
+    List<Product> findAllByIdIn(Collection<Long> productIds);
+
+    // Conditional decrements: each returns the number of updated rows (0 or 1), so the
+    // stock check and the write happen in one statement without a prior read. Products
+    // with stock slots are left alone: their slots own the stock.
+    @Modifying
+    @Query("update Product p set p.available = p.available - 1 where p.id = :id and p.available > 0"
+            + " and not exists (select s from ProductStockShard s where s.productId = p.id)")
+    int decrementAvailable(@Param("id") Long productId);
+
+    @Modifying
+    @Query("update Product p set p.available = p.available - 1 where p.id = :id and p.available > 0"
+            + " and not exists (select s from ProductStockShard s where s.productId = p.id)"
+            + " and p.expiryDate > :today")
+    int decrementAvailableIfNotExpired(@Param("id") Long productId, @Param("today") LocalDate today);
+
+    @Modifying
+    @Query("update Product p set p.available = p.available - 1 where p.id = :id and p.available > 0"
+            + " and not exists (select s from ProductStockShard s where s.productId = p.id)"
+            + " and p.seasonStartDate < :today and p.seasonEndDate > :today")
+    int decrementAvailableIfInSeason(@Param("id") Long productId, @Param("today") LocalDate today);
+
+    // Keyset page of the catalogue: rows after the given id, in id order, read as
+    // projections with a JDBC cursor. The pageable only carries the page size. The date
+    // filters use the strict bounds of the conditional decrements above.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select new com.nimbleways.springboilerplate.dto.product.ProductSummary(p.id, p.name, p.type,"
+            + " p.available, p.leadTime, p.expiryDate, p.seasonStartDate, p.seasonEndDate) from Product p"
+            + " where p.id > :afterId"
+            + " and (:type is null or p.type = :type)"
+            + " and (:inStock = false or p.available > 0)"
+            + " and (:notExpiredOn is null or p.expiryDate is null or p.expiryDate > :notExpiredOn)"
+            + " and (:inSeasonOn is null or p.seasonStartDate is null"
+            + " or (p.seasonStartDate < :inSeasonOn and p.seasonEndDate > :inSeasonOn))"
+            + " order by p.id")
+    Stream<ProductSummary> streamCatalogue(@Param("afterId") Long afterId,
+                                           @Param("type") ProductType type,
+                                           @Param("inStock") boolean inStock,
+                                           @Param("notExpiredOn") LocalDate notExpiredOn,
+                                           @Param("inSeasonOn") LocalDate inSeasonOn,
+                                           Pageable page);
+
+    // Sweep chunks: in-stock products of a type whose expiry date, or season end date,
+    // is on or before the given day, after the given id.
+    @Query("select new com.nimbleways.springboilerplate.dto.product.ProductSummary(p.id, p.name, p.type,"
+            + " p.available, p.leadTime, p.expiryDate, p.seasonStartDate, p.seasonEndDate) from Product p"
+            + " where p.type = :type and p.available > 0 and p.id > :afterId and p.expiryDate <= :today"
+            + " order by p.id")
+    List<ProductSummary> findExpiredInStock(@Param("type") ProductType type, @Param("today") LocalDate today,
+                                            @Param("afterId") Long afterId, Pageable page);
+
+    @Query("select new com.nimbleways.springboilerplate.dto.product.ProductSummary(p.id, p.name, p.type,"
+            + " p.available, p.leadTime, p.expiryDate, p.seasonStartDate, p.seasonEndDate) from Product p"
+            + " where p.type = :type and p.available > 0 and p.id > :afterId and p.seasonEndDate <= :today"
+            + " order by p.id")
+    List<ProductSummary> findOutOfSeasonInStock(@Param("type") ProductType type, @Param("today") LocalDate today,
+                                                @Param("afterId") Long afterId, Pageable page);
 }
@@ -0,0 +1,38 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.nimbleways.springboilerplate.entities.ProductStockShard;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.LockModeType;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, ProductStockShard.Key> {
+
+    // Same contract as ProductRepository.decrementAvailable, on a single slot
+    @Modifying
+    @Query("update ProductStockShard s set s.available = s.available - 1"
+            + " where s.productId = :productId and s.slot = :slot and s.available > 0")
+    int decrementSlot(@Param("productId") Long productId, @Param("slot") int slot);
+
+    @Query("select s.slot from ProductStockShard s where s.productId = :productId and s.available > 0 order by s.slot")
+    List<Integer> findSlotsWithStock(@Param("productId") Long productId);
+
+    @Query("select coalesce(sum(s.available), 0) from ProductStockShard s where s.productId = :productId")
+    long sumAvailable(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("update ProductStockShard s set s.available = 0 where s.productId in :productIds")
+    int clearSlots(@Param("productIds") Collection<Long> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ProductStockShard s where s.productId = :productId order by s.slot")
+    List<ProductStockShard> lockSlots(@Param("productId") Long productId);
+
+    @Query("select distinct s.productId from ProductStockShard s")
+    List<Long> findShardedProductIds();
+}
@@ -0,0 +1,21 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.nimbleways.springboilerplate.entities.SpilledNotification;
+import java.util.List;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+
+public interface SpilledNotificationRepository extends JpaRepository<SpilledNotification, Long> {
+
+    // Lock timeout -2 is Hibernate's SKIP LOCKED: instances refilling at once each take disjoint rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select s from SpilledNotification s order by s.id")
+    List<SpilledNotification> lockNextBatch(Pageable pageable);
+}
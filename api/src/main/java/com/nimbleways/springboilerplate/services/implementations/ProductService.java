@@ -1,49 +1,110 @@
 package com.nimbleways.springboilerplate.services.implementations;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.notification.INotificationDispatcher;
+import com.nimbleways.springboilerplate.services.implementations.notification.ProductNotification;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductProcessingMetrics;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductProcessingMetrics.Branch;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
 
+// Products are managed entities of the order transaction: lead time changes are written
+// once, in a JDBC batch, when the persistence context flushes. Stock changes always go
+// through the IStockLedger, never through the entity.
 @Service
+@Transactional(propagation = Propagation.MANDATORY)
 public class ProductService {
 
     @Autowired
-    ProductRepository pr;
+    IStockLedger stock;
 
     @Autowired
-    NotificationService ns;
+    INotificationDispatcher ns;
+
+    @Autowired
+    ProductProcessingMetrics metrics;
 
     public void notifyDelay(int leadTime, Product p) {
         p.setLeadTime(leadTime);
-        pr.save(p);
+        metrics.branch(Branch.DELAY);
         ns.sendDelayNotification(leadTime, p.getName());
     }
 
+    // The single-product handlers run the chunk handlers on a list of one
     public void handleSeasonalProduct(Product p) {
-        if (LocalDate.now().plusDays(p.getLeadTime()).isAfter(p.getSeasonEndDate())) {
-            ns.sendOutOfStockNotification(p.getName());
-            p.setAvailable(0);
-            pr.save(p);
-        } else if (p.getSeasonStartDate().isAfter(LocalDate.now())) {
-            ns.sendOutOfStockNotification(p.getName());
-            pr.save(p);
-        } else {
-            notifyDelay(p.getLeadTime(), p);
-        }
+        handleSeasonalProducts(List.of(p), Set.of());
     }
 
+    // An expired product is not offered to the ledger: it cannot be decremented, and once
+    // swept its stock is already zero
     public void handleExpiredProduct(Product p) {
-        if (p.getAvailable() > 0 && p.getExpiryDate().isAfter(LocalDate.now())) {
-            p.setAvailable(p.getAvailable() - 1);
-            pr.save(p);
-        } else {
-            ns.sendExpirationNotification(p.getName(), p.getExpiryDate());
-            p.setAvailable(0);
-            pr.save(p);
+        LocalDate today = LocalDate.now();
+        boolean decremented = p.getExpiryDate().isAfter(today) && stock.tryDecrementIfNotExpired(p, today);
+        handleExpiredProducts(List.of(p), decremented ? Set.of(p.getId()) : Set.of());
+    }
+
+    // Chunk handlers, given the ids the strategy already decremented: the other products
+    // are handled without another decrement, their stock is cleared in one call and their
+    // notifications are handed to the dispatcher together.
+
+    public void handleNormalProducts(List<Product> products, Set<Long> decremented) {
+        List<ProductNotification> notifications = new ArrayList<>();
+        for (Product p : products) {
+            if (decremented.contains(p.getId())) {
+                metrics.branch(Branch.DECREMENT);
+            } else if (p.getLeadTime() > 0) {
+                metrics.branch(Branch.DELAY);
+                notifications.add(ProductNotification.delay(p.getLeadTime(), p.getName()));
+            }
+        }
+        ns.sendAll(notifications);
+    }
+
+    public void handleSeasonalProducts(List<Product> products, Set<Long> decremented) {
+        LocalDate today = LocalDate.now();
+        List<ProductNotification> notifications = new ArrayList<>();
+        List<Product> cleared = new ArrayList<>();
+        for (Product p : products) {
+            if (decremented.contains(p.getId())) {
+                metrics.branch(Branch.DECREMENT);
+            } else if (today.plusDays(p.getLeadTime()).isAfter(p.getSeasonEndDate())) {
+                metrics.branch(Branch.OUT_OF_STOCK);
+                notifications.add(ProductNotification.outOfStock(p.getName()));
+                cleared.add(p);
+            } else if (p.getSeasonStartDate().isAfter(today)) {
+                metrics.branch(Branch.OUT_OF_STOCK);
+                notifications.add(ProductNotification.outOfStock(p.getName()));
+            } else {
+                metrics.branch(Branch.DELAY);
+                notifications.add(ProductNotification.delay(p.getLeadTime(), p.getName()));
+            }
+        }
+        ns.sendAll(notifications);
+        stock.clearAll(cleared);
+    }
+
+    public void handleExpiredProducts(List<Product> products, Set<Long> decremented) {
+        List<ProductNotification> notifications = new ArrayList<>();
+        List<Product> expired = new ArrayList<>();
+        for (Product p : products) {
+            if (decremented.contains(p.getId())) {
+                metrics.branch(Branch.DECREMENT);
+            } else {
+                metrics.branch(Branch.EXPIRED);
+                notifications.add(ProductNotification.expiration(p.getName(), p.getExpiryDate()));
+                expired.add(p);
+            }
         }
+        ns.sendAll(notifications);
+        stock.clearAll(expired);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.services.implementations.cluster;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cluster")
+public class ClusterProperties {
+
+    private boolean enabled = false;
+    // Must be unique per running instance
+    private String nodeId = UUID.randomUUID().toString();
+    // Must be the same on every node
+    private int partitions = 16;
+    private Duration leaseDuration = Duration.ofSeconds(15);
+    private Duration heartbeatInterval = Duration.ofSeconds(5);
+}
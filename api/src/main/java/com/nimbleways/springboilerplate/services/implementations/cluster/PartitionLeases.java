@@ -0,0 +1,185 @@
+package com.nimbleways.springboilerplate.services.implementations.cluster;
+
+import com.nimbleways.springboilerplate.entities.ClusterNode;
+import com.nimbleways.springboilerplate.entities.PartitionLease;
+import com.nimbleways.springboilerplate.repositories.ClusterNodeRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.PartitionLeaseRepository;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCacheProperties;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Spreads the product partitions over the running instances with leases kept in the
+// partition_leases table; the database is the only coordinator. Every heartbeat a node
+// records itself in cluster_nodes, renews its leases up to its fair share of the live
+// nodes, gives back the extra ones so that a new node can take them, and takes over free
+// or expired leases. A node that stops heartbeating loses its leases once they expire.
+// A node only considers a lease its own until the expiry it wrote, so it stops acting as
+// owner before another node can take over; node clocks are assumed to be in sync.
+//
+// Orders are routed to the partition of their lowest product id and queued as jobs that
+// only the owner's workers claim, so the products of a partition are mostly written by a
+// single node. The other products of an order may belong to partitions other nodes hold,
+// and a lease may expire while its holder is still processing: ownership reduces
+// contention, the conditional stock updates keep two nodes writing the same product
+// correct. Batches processed synchronously are refused for orders routed to other nodes.
+//
+// Stock must live in the shared database: the node refuses to start with the in-memory
+// stock engine or the product cache, whose per-node state other nodes would overwrite.
+@Slf4j
+@Component
+@ConditionalOnExpression("${cluster.enabled:false} and ${orders.processing.async.enabled:false}")
+public class PartitionLeases {
+
+    private record Ownership(Set<Integer> partitions, Instant validUntil) {
+    }
+
+    private final PartitionLeaseRepository leaseRepository;
+    private final ClusterNodeRepository nodeRepository;
+    private final OrderRepository orderRepository;
+    private final ClusterProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private volatile Ownership ownership = new Ownership(Set.of(), Instant.MIN);
+
+    public PartitionLeases(PartitionLeaseRepository leaseRepository,
+                           ClusterNodeRepository nodeRepository,
+                           OrderRepository orderRepository,
+                           ClusterProperties properties,
+                           StockProperties stockProperties,
+                           ProductCacheProperties cacheProperties,
+                           PlatformTransactionManager transactionManager) {
+        if (!"database".equals(stockProperties.getMode()) || cacheProperties.isEnabled()) {
+            throw new IllegalStateException("cluster.enabled requires stock.mode=database and products.cache.enabled=false");
+        }
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.orderRepository = orderRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        createMissingLeases();
+        heartbeat();
+    }
+
+    // Gives the leases back at once instead of letting them expire
+    @PreDestroy
+    public void stop() {
+        ownership = new Ownership(Set.of(), Instant.MIN);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                leaseRepository.releaseAll(properties.getNodeId());
+                nodeRepository.deleteNode(properties.getNodeId());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Cannot release the partition leases of node {}", properties.getNodeId(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.heartbeat-interval:PT5S}")
+    public void heartbeat() {
+        Instant now = Instant.now();
+        Instant until = now.plus(properties.getLeaseDuration());
+        try {
+            Set<Integer> owned = transactionTemplate.execute(status -> renew(now, until));
+            ownership = new Ownership(Collections.unmodifiableSet(owned), until);
+        } catch (RuntimeException e) {
+            log.error("Partition lease heartbeat of node {} failed", properties.getNodeId(), e);
+        }
+    }
+
+    public int partitionOf(Long productId) {
+        return Math.floorMod(Long.hashCode(productId), properties.getPartitions());
+    }
+
+    /**
+     * Partition an order is routed to: the one of its lowest product id, or null for an
+     * unknown or empty order, which any node may process.
+     */
+    public Integer partitionOfOrder(Long orderId) {
+        return partitionOfItems(orderRepository.findItemIdsById(orderId));
+    }
+
+    /**
+     * Partition an order holding the given products is routed to, or null without products.
+     */
+    public Integer partitionOfItems(Collection<Long> productIds) {
+        return productIds.stream()
+                .filter(Objects::nonNull)
+                .min(Long::compare)
+                .map(this::partitionOf)
+                .orElse(null);
+    }
+
+    public Set<Integer> owned() {
+        Ownership current = ownership;
+        return Instant.now().isBefore(current.validUntil()) ? current.partitions() : Set.of();
+    }
+
+    private Set<Integer> renew(Instant now, Instant until) {
+        String node = properties.getNodeId();
+        if (nodeRepository.touch(node, now) == 0) {
+            nodeRepository.save(new ClusterNode(node, now));
+        }
+        long liveNodes = Math.max(1, nodeRepository.countByHeartbeatAtAfter(now.minus(properties.getLeaseDuration())));
+        long share = (properties.getPartitions() + liveNodes - 1) / liveNodes;
+
+        List<PartitionLease> leases = leaseRepository.findAllByOrderById().stream()
+                .filter(lease -> lease.getId() < properties.getPartitions())
+                .toList();
+        Set<Integer> owned = new TreeSet<>();
+        for (PartitionLease lease : leases) {
+            if (!node.equals(lease.getOwner())) {
+                continue;
+            }
+            if (owned.size() < share && leaseRepository.tryAcquire(lease.getId(), node, now, until) > 0) {
+                owned.add(lease.getId());
+            } else {
+                leaseRepository.release(lease.getId(), node);
+            }
+        }
+        for (PartitionLease lease : leases) {
+            if (owned.size() >= share) {
+                break;
+            }
+            boolean free = lease.getOwner() == null || lease.getExpiresAt().isBefore(now);
+            if (free && leaseRepository.tryAcquire(lease.getId(), node, now, until) > 0) {
+                owned.add(lease.getId());
+            }
+        }
+        return owned;
+    }
+
+    private void createMissingLeases() {
+        for (int partition = 0; partition < properties.getPartitions(); partition++) {
+            int id = partition;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!leaseRepository.existsById(id)) {
+                        leaseRepository.saveAndFlush(new PartitionLease(id, null, null));
+                    }
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Created concurrently by another node
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.nimbleways.springboilerplate.services.implementations.cluster;
+
+import java.util.Collection;
+
+public class PartitionNotOwnedException extends RuntimeException {
+
+    public PartitionNotOwnedException(Collection<Long> orderIds) {
+        super("Orders routed to partitions this node does not hold: " + orderIds);
+    }
+}
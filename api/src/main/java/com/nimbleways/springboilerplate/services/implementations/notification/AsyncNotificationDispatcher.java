@@ -0,0 +1,267 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.entities.SpilledNotification;
+import com.nimbleways.springboilerplate.repositories.SpilledNotificationRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Notifications go into a bounded ring buffer (ArrayBlockingQueue) instead of being sent on
+// the order thread. A single drainer takes them in batches and merges duplicates for the
+// same product and type within the coalescing window; merged notifications are then sent
+// to NotificationService by a pool of worker threads. With SPILL_TO_DB, notifications that
+// do not fit are stored in spilled_notifications and queued again once there is room.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notifications.dispatch", name = "mode", havingValue = "async")
+public class AsyncNotificationDispatcher implements INotificationDispatcher {
+
+    private final NotificationService notificationService;
+    private final SpilledNotificationRepository spillRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationDispatchProperties properties;
+    private final BlockingQueue<ProductNotification> ringBuffer;
+    private final Map<ProductNotification.CoalescingKey, ProductNotification> pending = new LinkedHashMap<>();
+    private final AtomicBoolean spillPending = new AtomicBoolean(true);
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter coalesced;
+    private final Counter delivered;
+    private final NotificationTimers timers;
+    private volatile boolean running;
+    private Thread drainer;
+    private ThreadPoolExecutor senders;
+
+    public AsyncNotificationDispatcher(NotificationService notificationService,
+                                       SpilledNotificationRepository spillRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       NotificationDispatchProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        this.spillRepository = spillRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.ringBuffer = new ArrayBlockingQueue<>(properties.getCapacity());
+
+        Gauge.builder("notifications.dispatch.queue.depth", ringBuffer, Collection::size)
+                .register(meterRegistry);
+        Gauge.builder("notifications.dispatch.queue.lag", this, AsyncNotificationDispatcher::lagMillis)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notifications.dispatch.dropped").register(meterRegistry);
+        this.spilled = Counter.builder("notifications.dispatch.spilled").register(meterRegistry);
+        this.coalesced = Counter.builder("notifications.dispatch.coalesced").register(meterRegistry);
+        this.delivered = Counter.builder("notifications.dispatch.delivered").register(meterRegistry);
+        this.timers = new NotificationTimers(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        senders = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getBatchSize()),
+                r -> new Thread(r, "notification-sender-" + threadIndex.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        running = true;
+        drainer = new Thread(this::drainLoop, "notification-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            drainer.join();
+        }
+        List<ProductNotification> remaining = new ArrayList<>();
+        ringBuffer.drainTo(remaining);
+        remaining.forEach(this::coalesce);
+        releaseDue(Long.MAX_VALUE);
+        if (senders != null) {
+            senders.shutdown();
+            senders.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void sendDelayNotification(int leadTime, String productName) {
+        enqueue(ProductNotification.delay(leadTime, productName));
+    }
+
+    @Override
+    public void sendOutOfStockNotification(String productName) {
+        enqueue(ProductNotification.outOfStock(productName));
+    }
+
+    @Override
+    public void sendExpirationNotification(String productName, LocalDate expiryDate) {
+        enqueue(ProductNotification.expiration(productName, expiryDate));
+    }
+
+    public int queueDepth() {
+        return ringBuffer.size();
+    }
+
+    double lagMillis() {
+        ProductNotification oldest = ringBuffer.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAtNanos()) / 1_000_000.0;
+    }
+
+    private void enqueue(ProductNotification notification) {
+        switch (properties.getOverflow()) {
+            case BLOCK -> put(notification);
+            case DROP_OLDEST -> {
+                while (!ringBuffer.offer(notification)) {
+                    if (ringBuffer.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+            case SPILL_TO_DB -> {
+                if (!ringBuffer.offer(notification)) {
+                    spillRepository.save(new SpilledNotification(null, notification.type(),
+                            notification.productName(), notification.leadTime(), notification.expiryDate()));
+                    spilled.increment();
+                    signalSpillAfterCommit();
+                }
+            }
+        }
+    }
+
+    // A row spilled inside the order transaction is only visible to the drainer once committed
+    private void signalSpillAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    spillPending.set(true);
+                }
+            });
+        } else {
+            spillPending.set(true);
+        }
+    }
+
+    private void put(ProductNotification notification) {
+        try {
+            ringBuffer.put(notification);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing notification", e);
+        }
+    }
+
+    private void drainLoop() {
+        long pollMillis = Math.max(1, properties.getCoalesceWindow().toMillis() / 2);
+        List<ProductNotification> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                ProductNotification first = ringBuffer.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    ringBuffer.drainTo(batch, properties.getBatchSize() - 1);
+                    batch.forEach(this::coalesce);
+                    batch.clear();
+                }
+                releaseDue(System.nanoTime());
+                if (properties.getOverflow() == OverflowPolicy.SPILL_TO_DB) {
+                    refillFromSpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Notification drainer failed", e);
+            }
+        }
+    }
+
+    private void coalesce(ProductNotification notification) {
+        pending.merge(notification.key(), notification, (first, latest) -> {
+            coalesced.increment();
+            return latest.mergedInto(first);
+        });
+    }
+
+    // Pending entries keep their first-arrival order, so the scan stops at the first
+    // entry whose window is still open.
+    private void releaseDue(long nowNanos) {
+        long windowNanos = properties.getCoalesceWindow().toNanos();
+        Iterator<ProductNotification> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            ProductNotification notification = iterator.next();
+            if (nowNanos != Long.MAX_VALUE && nowNanos - notification.enqueuedAtNanos() < windowNanos) {
+                return;
+            }
+            iterator.remove();
+            senders.execute(() -> deliver(notification));
+        }
+    }
+
+    private void deliver(ProductNotification notification) {
+        try {
+            timers.deliver(notification, notificationService);
+            delivered.increment();
+        } catch (RuntimeException e) {
+            log.warn("Failed to send {} notification for {}", notification.type(), notification.productName(), e);
+        }
+    }
+
+    // The rows are locked, skipping those another instance is refilling from, and deleted in
+    // the transaction that locked them, so each spilled row is queued by a single instance.
+    // A row queued by a transaction that then fails to commit is queued again later.
+    private void refillFromSpill() {
+        int limit = Math.min(ringBuffer.remainingCapacity(), properties.getBatchSize());
+        if (limit == 0 || !spillPending.getAndSet(false)) {
+            return;
+        }
+        try {
+            Boolean more = transactionTemplate.execute(status -> {
+                List<SpilledNotification> rows = spillRepository.lockNextBatch(PageRequest.of(0, limit));
+                List<SpilledNotification> requeued = new ArrayList<>(rows.size());
+                for (SpilledNotification row : rows) {
+                    ProductNotification notification = new ProductNotification(row.getType(), row.getProductName(),
+                            row.getLeadTime() == null ? 0 : row.getLeadTime(), row.getExpiryDate(), System.nanoTime());
+                    if (!ringBuffer.offer(notification)) {
+                        break;
+                    }
+                    requeued.add(row);
+                }
+                spillRepository.deleteAllInBatch(requeued);
+                return rows.size() == limit || requeued.size() < rows.size();
+            });
+            if (Boolean.TRUE.equals(more)) {
+                spillPending.set(true);
+            }
+        } catch (RuntimeException e) {
+            spillPending.set(true);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@ConditionalOnProperty(prefix = "notifications.dispatch", name = "mode", havingValue = "sync", matchIfMissing = true)
+public class DirectNotificationDispatcher implements INotificationDispatcher {
+
+    private final NotificationService notificationService;
+    private final NotificationTimers timers;
+
+    public DirectNotificationDispatcher(NotificationService notificationService, MeterRegistry meterRegistry) {
+        this.notificationService = notificationService;
+        this.timers = new NotificationTimers(meterRegistry);
+    }
+
+    @Override
+    public void sendDelayNotification(int leadTime, String productName) {
+        long start = System.nanoTime();
+        notificationService.sendDelayNotification(leadTime, productName);
+        timers.record(NotificationType.DELAY, start);
+    }
+
+    @Override
+    public void sendOutOfStockNotification(String productName) {
+        long start = System.nanoTime();
+        notificationService.sendOutOfStockNotification(productName);
+        timers.record(NotificationType.OUT_OF_STOCK, start);
+    }
+
+    @Override
+    public void sendExpirationNotification(String productName, LocalDate expiryDate) {
+        long start = System.nanoTime();
+        notificationService.sendExpirationNotification(productName, expiryDate);
+        timers.record(NotificationType.EXPIRATION, start);
+    }
+}
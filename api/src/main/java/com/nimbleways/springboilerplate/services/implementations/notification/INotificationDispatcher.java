@@ -0,0 +1,24 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface INotificationDispatcher {
+
+    void sendDelayNotification(int leadTime, String productName);
+
+    void sendOutOfStockNotification(String productName);
+
+    void sendExpirationNotification(String productName, LocalDate expiryDate);
+
+    // The notifications of a chunk of products, handed over in one call
+    default void sendAll(List<ProductNotification> notifications) {
+        for (ProductNotification notification : notifications) {
+            switch (notification.type()) {
+                case DELAY -> sendDelayNotification(notification.leadTime(), notification.productName());
+                case OUT_OF_STOCK -> sendOutOfStockNotification(notification.productName());
+                case EXPIRATION -> sendExpirationNotification(notification.productName(), notification.expiryDate());
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "notifications.dispatch")
+public class NotificationDispatchProperties {
+
+    private int capacity = 10_000;
+    private int workers = 2;
+    private int batchSize = 256;
+    private Duration coalesceWindow = Duration.ofMillis(200);
+    private OverflowPolicy overflow = OverflowPolicy.BLOCK;
+    private Outbox outbox = new Outbox();
+
+    @Getter
+    @Setter
+    public static class Outbox {
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private int batchSize = 500;
+        private int maxAttempts = 10;
+    }
+}
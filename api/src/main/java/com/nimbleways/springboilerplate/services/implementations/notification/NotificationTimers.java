@@ -0,0 +1,38 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Times calls to NotificationService per notification type. Registration is idempotent,
+// so every dispatcher can build its own instance on the shared registry.
+class NotificationTimers {
+
+    private final Map<NotificationType, Timer> timers = new EnumMap<>(NotificationType.class);
+
+    NotificationTimers(MeterRegistry meterRegistry) {
+        for (NotificationType type : NotificationType.values()) {
+            timers.put(type, Timer.builder("notifications.send")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    void record(NotificationType type, long startNanos) {
+        timers.get(type).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void deliver(ProductNotification notification, NotificationService notificationService) {
+        long start = System.nanoTime();
+        try {
+            notification.deliverTo(notificationService);
+        } finally {
+            record(notification.type(), start);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+public enum NotificationType {
+
+    DELAY,
+    OUT_OF_STOCK,
+    EXPIRATION
+}
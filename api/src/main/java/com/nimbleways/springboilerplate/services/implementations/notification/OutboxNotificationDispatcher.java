@@ -0,0 +1,74 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.entities.OutboxNotification;
+import com.nimbleways.springboilerplate.repositories.OutboxNotificationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+// Each notification becomes an outbox row written in the caller's transaction, so it is
+// committed or rolled back together with the product update; OutboxRelay sends it later.
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+@ConditionalOnProperty(prefix = "notifications.dispatch", name = "mode", havingValue = "outbox")
+public class OutboxNotificationDispatcher implements INotificationDispatcher {
+
+    private static final String INSERT_OUTBOX = "insert into notification_outbox"
+            + " (type, product_name, lead_time, expiry_date, created_at, attempts) values (?, ?, ?, ?, ?, 0)";
+
+    private final OutboxNotificationRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxNotificationDispatcher(OutboxNotificationRepository outboxRepository, JdbcTemplate jdbcTemplate) {
+        this.outboxRepository = outboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void sendDelayNotification(int leadTime, String productName) {
+        append(NotificationType.DELAY, productName, leadTime, null);
+    }
+
+    @Override
+    public void sendOutOfStockNotification(String productName) {
+        append(NotificationType.OUT_OF_STOCK, productName, null, null);
+    }
+
+    @Override
+    public void sendExpirationNotification(String productName, LocalDate expiryDate) {
+        append(NotificationType.EXPIRATION, productName, null, expiryDate);
+    }
+
+    // Identity ids keep Hibernate from batching inserts, so the rows of a chunk are written
+    // with one JDBC batch on the transaction's connection
+    @Override
+    public void sendAll(List<ProductNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX, notifications, notifications.size(), (ps, n) -> {
+            ps.setString(1, n.type().name());
+            ps.setString(2, n.productName());
+            if (n.type() == NotificationType.DELAY) {
+                ps.setInt(3, n.leadTime());
+            } else {
+                ps.setNull(3, Types.INTEGER);
+            }
+            ps.setObject(4, n.expiryDate(), Types.DATE);
+            ps.setTimestamp(5, now);
+        });
+    }
+
+    private void append(NotificationType type, String productName, Integer leadTime, LocalDate expiryDate) {
+        outboxRepository.save(new OutboxNotification(null, type, productName, leadTime, expiryDate, Instant.now(), 0, null));
+    }
+}
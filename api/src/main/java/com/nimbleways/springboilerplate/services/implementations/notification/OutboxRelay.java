@@ -0,0 +1,82 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.entities.OutboxNotification;
+import com.nimbleways.springboilerplate.repositories.OutboxNotificationRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Polls the outbox in batches and hands the rows to NotificationService. Rows are deleted
+// in the same transaction that locked them, only after they were sent, so delivery is at
+// least once; a failed row stays in the outbox until it reaches the attempt limit. It is then
+// marked failed, logged and counted, and kept for inspection instead of being retried.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "notifications.dispatch", name = "mode", havingValue = "outbox")
+public class OutboxRelay {
+
+    private final OutboxNotificationRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final NotificationDispatchProperties.Outbox properties;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationTimers timers;
+    private final Counter failed;
+
+    public OutboxRelay(OutboxNotificationRepository outboxRepository,
+                       NotificationService notificationService,
+                       NotificationDispatchProperties properties,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.properties = properties.getOutbox();
+        this.transactionTemplate = transactionTemplate;
+        this.timers = new NotificationTimers(meterRegistry);
+        this.failed = Counter.builder("notifications.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.dispatch.outbox.poll-interval:PT1S}")
+    public void relayPending() {
+        Integer relayed;
+        do {
+            relayed = transactionTemplate.execute(status -> relayBatch());
+        } while (relayed != null && relayed == properties.getBatchSize());
+    }
+
+    private int relayBatch() {
+        List<OutboxNotification> rows = outboxRepository.lockNextBatch(PageRequest.of(0, properties.getBatchSize()));
+        List<OutboxNotification> sent = new ArrayList<>(rows.size());
+        for (OutboxNotification row : rows) {
+            try {
+                timers.deliver(toNotification(row), notificationService);
+                sent.add(row);
+            } catch (RuntimeException e) {
+                row.setAttempts(row.getAttempts() + 1);
+                if (row.getAttempts() < properties.getMaxAttempts()) {
+                    log.warn("Failed to relay outbox notification {} (attempt {})", row.getId(), row.getAttempts(), e);
+                } else {
+                    row.setFailedAt(Instant.now());
+                    failed.increment();
+                    log.error("Giving up on outbox notification {} after {} attempts", row.getId(), row.getAttempts(), e);
+                }
+            }
+        }
+        outboxRepository.deleteAllInBatch(sent);
+        return sent.size();
+    }
+
+    private static ProductNotification toNotification(OutboxNotification row) {
+        return new ProductNotification(row.getType(), row.getProductName(),
+                row.getLeadTime() == null ? 0 : row.getLeadTime(), row.getExpiryDate(), System.nanoTime());
+    }
+}
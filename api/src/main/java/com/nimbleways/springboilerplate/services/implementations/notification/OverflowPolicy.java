@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+public enum OverflowPolicy {
+
+    BLOCK,
+    DROP_OLDEST,
+    SPILL_TO_DB
+}
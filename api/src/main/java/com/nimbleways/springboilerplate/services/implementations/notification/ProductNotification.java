@@ -0,0 +1,45 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+
+import java.time.LocalDate;
+
+public record ProductNotification(NotificationType type,
+                                  String productName,
+                                  int leadTime,
+                                  LocalDate expiryDate,
+                                  long enqueuedAtNanos) {
+
+    public static ProductNotification delay(int leadTime, String productName) {
+        return new ProductNotification(NotificationType.DELAY, productName, leadTime, null, System.nanoTime());
+    }
+
+    public static ProductNotification outOfStock(String productName) {
+        return new ProductNotification(NotificationType.OUT_OF_STOCK, productName, 0, null, System.nanoTime());
+    }
+
+    public static ProductNotification expiration(String productName, LocalDate expiryDate) {
+        return new ProductNotification(NotificationType.EXPIRATION, productName, 0, expiryDate, System.nanoTime());
+    }
+
+    public CoalescingKey key() {
+        return new CoalescingKey(type, productName);
+    }
+
+    // Keeps the latest payload but the first arrival time, so the coalescing window
+    // is measured from the first duplicate.
+    ProductNotification mergedInto(ProductNotification first) {
+        return new ProductNotification(type, productName, leadTime, expiryDate, first.enqueuedAtNanos);
+    }
+
+    public void deliverTo(NotificationService notificationService) {
+        switch (type) {
+            case DELAY -> notificationService.sendDelayNotification(leadTime, productName);
+            case OUT_OF_STOCK -> notificationService.sendOutOfStockNotification(productName);
+            case EXPIRATION -> notificationService.sendExpirationNotification(productName, expiryDate);
+        }
+    }
+
+    public record CoalescingKey(NotificationType type, String productName) {
+    }
+}
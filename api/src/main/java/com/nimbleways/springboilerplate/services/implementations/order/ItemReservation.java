@@ -0,0 +1,77 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The stock reserved for a slice of an order's items by a worker thread. The worker runs
+// under transaction synchronization only, without a database transaction or connection, and
+// the callbacks registered by the ledger and the cache (stock restore on rollback, cache
+// updates) are kept here. The order thread registers them on the order transaction and then
+// completes the items itself, so notifications, entity changes and the commit of every slice
+// belong to the order transaction: if it rolls back, the stock of every slice is given back.
+// In-memory stock mode only: in database mode a reservation is an UPDATE.
+record ItemReservation(Map<ProductType, List<Product>> products,
+                       Map<ProductType, Set<Long>> reserved,
+                       List<TransactionSynchronization> synchronizations,
+                       RuntimeException failure) {
+
+    static ItemReservation reserve(ProductRuleFactory productRuleFactory, Collection<Product> items) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Map<ProductType, List<Product>> byType = ProductRuleFactory.byType(items);
+            Map<ProductType, Set<Long>> reserved = new EnumMap<>(ProductType.class);
+            byType.forEach((type, products) -> reserved.put(type,
+                    productRuleFactory.getStrategy(type).reserve(products)));
+            return new ItemReservation(byType, reserved, TransactionSynchronizationManager.getSynchronizations(), null);
+        } catch (RuntimeException e) {
+            return new ItemReservation(Map.of(), Map.of(), TransactionSynchronizationManager.getSynchronizations(), e);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    static ItemReservation failed(RuntimeException failure) {
+        return new ItemReservation(Map.of(), Map.of(), List.of(), failure);
+    }
+
+    /**
+     * Registers the callbacks of every reservation on the order transaction, then completes
+     * the items type by type on the calling thread. When a reservation failed, its failure
+     * is thrown instead and the rollback of the order transaction gives all the stock back.
+     */
+    static void complete(ProductRuleFactory productRuleFactory, List<ItemReservation> reservations) {
+        RuntimeException failure = null;
+        for (ItemReservation reservation : reservations) {
+            reservation.synchronizations().forEach(TransactionSynchronizationManager::registerSynchronization);
+            if (failure == null) {
+                failure = reservation.failure();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        Map<ProductType, List<Product>> products = new EnumMap<>(ProductType.class);
+        Map<ProductType, Set<Long>> reserved = new EnumMap<>(ProductType.class);
+        for (ItemReservation reservation : reservations) {
+            reservation.products().forEach((type, slice) ->
+                    products.computeIfAbsent(type, t -> new ArrayList<>()).addAll(slice));
+            reservation.reserved().forEach((type, ids) ->
+                    reserved.computeIfAbsent(type, t -> new HashSet<>()).addAll(ids));
+        }
+        products.forEach((type, slice) -> productRuleFactory
+                .getStrategy(type)
+                .complete(slice, reserved.getOrDefault(type, Set.of())));
+    }
+}
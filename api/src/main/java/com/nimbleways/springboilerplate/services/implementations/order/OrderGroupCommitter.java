@@ -0,0 +1,253 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs concurrent processOrder calls together: a committer thread collects the orders that
+// arrive within the window, up to the batch size, and processes them in one transaction,
+// so a group pays for one commit. Each order runs inside its own savepoint and is flushed
+// before the next one starts; a failing order is rolled back to its savepoint and only its
+// caller gets the error. Callers are answered once the group has committed.
+//
+// An exception that leaves a @Transactional service or repository marks the whole
+// transaction rollback-only, which no savepoint undoes. The most common one, the claim of
+// an order another instance already processed, is avoided by answering those orders
+// before the group starts. For the others the group stops at the failing order: its
+// transaction is rolled back and the failing order's caller gets the error. The orders
+// before it, which succeeded, run again as a group of their own, and the orders after it,
+// which never ran, form the next group, so each order runs at most twice however many
+// orders of the group fail. If a group cannot commit, for instance because the database
+// failed an order after its savepoint, each of its orders runs again in a transaction of
+// its own.
+//
+// Database stock mode only: the in-memory engine cannot undo a decrement rolled back to a
+// savepoint.
+@Slf4j
+@Component
+@ConditionalOnExpression("${orders.processing.group-commit.enabled:false} and '${stock.mode:database}' == 'database'")
+public class OrderGroupCommitter {
+
+    private record PendingOrder(Long orderId,
+                                Supplier<ProcessOrderResponse> work,
+                                CompletableFuture<ProcessOrderResponse> result) {
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessedOrderRegistry processedOrders;
+    private final EntityManager entityManager;
+    private final ProductCache productCache;
+    private final OrderProcessingProperties.GroupCommit properties;
+    private final BlockingQueue<PendingOrder> pending;
+    private volatile boolean running;
+    private Thread committer;
+
+    public OrderGroupCommitter(PlatformTransactionManager transactionManager,
+                               EntityManager entityManager,
+                               ProductCache productCache,
+                               ProcessedOrderRegistry processedOrders,
+                               OrderProcessingProperties properties) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.processedOrders = processedOrders;
+        this.entityManager = entityManager;
+        this.productCache = productCache;
+        this.properties = properties.getGroupCommit();
+        this.pending = new ArrayBlockingQueue<>(this.properties.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        committer = new Thread(this::commitLoop, "order-group-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        committer.interrupt();
+        committer.join();
+        PendingOrder order;
+        while ((order = pending.poll()) != null) {
+            order.result().completeExceptionally(new IllegalStateException("Order group committer stopped"));
+        }
+    }
+
+    /**
+     * Runs the work of the order in the next group and returns its response once the group
+     * has committed. The work must not open its own transaction, and is not run for an order
+     * that is already processed.
+     */
+    public ProcessOrderResponse submit(Long orderId, Supplier<ProcessOrderResponse> work) {
+        PendingOrder order = new PendingOrder(orderId, work, new CompletableFuture<>());
+        try {
+            pending.put(order);
+            return order.result().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing order", e);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingOrder> group = new ArrayList<>(properties.getMaxBatchSize());
+        while (running) {
+            try {
+                collect(group);
+                commit(withoutProcessed(group), true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(order -> order.result().completeExceptionally(
+                        new IllegalStateException("Order group committer stopped")));
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingOrder> group) throws InterruptedException {
+        group.add(pending.take());
+        long deadline = System.nanoTime() + properties.getWindow().toNanos();
+        while (group.size() < properties.getMaxBatchSize()) {
+            pending.drainTo(group, properties.getMaxBatchSize() - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() == properties.getMaxBatchSize() || remaining <= 0) {
+                return;
+            }
+            PendingOrder next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    // Answers the orders already processed, by an earlier group or another instance, so that
+    // their claims do not fail inside the group transaction
+    private List<PendingOrder> withoutProcessed(List<PendingOrder> group) {
+        Set<Long> processed;
+        try {
+            processed = processedOrders.findProcessed(group.stream().map(PendingOrder::orderId).toList());
+        } catch (RuntimeException e) {
+            log.warn("Cannot check which orders of a group are already processed", e);
+            return group;
+        }
+        List<PendingOrder> toRun = new ArrayList<>(group.size());
+        for (PendingOrder order : group) {
+            if (processed.contains(order.orderId())) {
+                order.result().complete(new ProcessOrderResponse(order.orderId()));
+            } else {
+                toRun.add(order);
+            }
+        }
+        return toRun;
+    }
+
+    private void commit(List<PendingOrder> group, boolean splitOnFailure) {
+        if (group.isEmpty()) {
+            return;
+        }
+        List<Object> outcomes = new ArrayList<>(group.size());
+        Boolean committed;
+        try {
+            committed = transactionTemplate.execute(status -> {
+                for (PendingOrder order : group) {
+                    outcomes.add(runInSavepoint(order, status));
+                    if (status.isRollbackOnly()) {
+                        status.setRollbackOnly();
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (RuntimeException | Error e) {
+            log.warn("Commit of a group of {} orders failed, running them one by one", group.size(), e);
+            productCache.invalidateAll();
+            group.forEach(this::runAlone);
+            return;
+        }
+        if (Boolean.TRUE.equals(committed)) {
+            for (int i = 0; i < group.size(); i++) {
+                complete(group.get(i), outcomes.get(i));
+            }
+            return;
+        }
+        productCache.invalidateAll();
+        int failed = outcomes.size() - 1;
+        if (!splitOnFailure || !(outcomes.get(failed) instanceof RuntimeException e)) {
+            // The culprit is unknown
+            group.forEach(this::runAlone);
+            return;
+        }
+        group.get(failed).result().completeExceptionally(e);
+        // Orders that failed within their savepoint keep their error, the others run again
+        List<PendingOrder> succeeded = new ArrayList<>(failed);
+        for (int i = 0; i < failed; i++) {
+            if (outcomes.get(i) instanceof RuntimeException error) {
+                group.get(i).result().completeExceptionally(error);
+            } else {
+                succeeded.add(group.get(i));
+            }
+        }
+        commit(succeeded, false);
+        commit(group.subList(failed + 1, group.size()), true);
+    }
+
+    private static void complete(PendingOrder order, Object outcome) {
+        if (outcome instanceof RuntimeException e) {
+            order.result().completeExceptionally(e);
+        } else {
+            order.result().complete((ProcessOrderResponse) outcome);
+        }
+    }
+
+    private void runAlone(PendingOrder order) {
+        try {
+            order.result().complete(transactionTemplate.execute(status -> order.work().get()));
+        } catch (RuntimeException | Error e) {
+            order.result().completeExceptionally(e);
+        }
+    }
+
+    private Object runInSavepoint(PendingOrder order, TransactionStatus status) {
+        Object savepoint = status.createSavepoint();
+        try {
+            ProcessOrderResponse response = order.work().get();
+            entityManager.flush();
+            status.releaseSavepoint(savepoint);
+            return response;
+        } catch (RuntimeException e) {
+            status.rollbackToSavepoint(savepoint);
+            // Unflushed changes of the failed order must not reach the next flush, and
+            // cached products may have been written after the savepoint
+            entityManager.clear();
+            productCache.invalidateAll();
+            return e;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.OrderJob;
+import com.nimbleways.springboilerplate.repositories.OrderJobRepository;
+import com.nimbleways.springboilerplate.services.implementations.cluster.PartitionLeases;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Persistent queue of order processing jobs, in the order_jobs table. Jobs enqueued on
+// this instance wake a local worker once committed; workers also poll, which picks up
+// jobs enqueued elsewhere or queued again after a crash. In cluster mode a job is tagged
+// with the partition of its order and only claimed by the node holding that lease.
+@Component
+@ConditionalOnProperty(prefix = "orders.processing.async", name = "enabled", havingValue = "true")
+public class OrderJobQueue {
+
+    private final OrderJobRepository jobRepository;
+    private final OrderProcessingProperties.Async properties;
+    private final PartitionLeases partitionLeases;
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    public OrderJobQueue(OrderJobRepository jobRepository,
+                         OrderProcessingProperties properties,
+                         ObjectProvider<PartitionLeases> partitionLeases) {
+        this.jobRepository = jobRepository;
+        this.properties = properties.getAsync();
+        this.partitionLeases = partitionLeases.getIfAvailable();
+    }
+
+    /**
+     * Queues the order, or throws OrderQueueFullException when the queue is at capacity.
+     * The count and the insert are not atomic: the capacity is a soft limit that concurrent
+     * calls may overshoot by their number, which is enough to shed load without serializing
+     * every enqueue on a shared lock.
+     */
+    @Transactional
+    public OrderJob enqueue(Long orderId) {
+        long queued = jobRepository.countByStatus(OrderJobStatus.QUEUED);
+        if (queued >= properties.getCapacity()) {
+            throw new OrderQueueFullException(queued);
+        }
+        Integer partition = partitionLeases == null ? null : partitionLeases.partitionOfOrder(orderId);
+        OrderJob job = jobRepository.save(new OrderJob(null, orderId, partition, OrderJobStatus.QUEUED, null, Instant.now(), null, null));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUps.release();
+                }
+            });
+        }
+        return job;
+    }
+
+    public Optional<OrderJob> find(Long jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    @Transactional
+    public Optional<OrderJob> claimNext() {
+        List<OrderJob> next = lockNext(PageRequest.ofSize(1));
+        if (next.isEmpty()) {
+            return Optional.empty();
+        }
+        OrderJob job = next.get(0);
+        job.setStatus(OrderJobStatus.RUNNING);
+        job.setStartedAt(Instant.now());
+        return Optional.of(job);
+    }
+
+    @Transactional
+    public void finish(Long jobId, String error) {
+        OrderJob job = jobRepository.findById(jobId).orElseThrow();
+        job.setStatus(error == null ? OrderJobStatus.SUCCEEDED : OrderJobStatus.FAILED);
+        job.setError(error);
+        job.setFinishedAt(Instant.now());
+    }
+
+    @Transactional
+    public int requeueStuck() {
+        return jobRepository.requeueStuck(OrderJobStatus.QUEUED, OrderJobStatus.RUNNING,
+                Instant.now().minus(properties.getStuckAfter()));
+    }
+
+    private List<OrderJob> lockNext(PageRequest page) {
+        if (partitionLeases == null) {
+            return jobRepository.lockNext(OrderJobStatus.QUEUED, page);
+        }
+        Set<Integer> owned = partitionLeases.owned();
+        return owned.isEmpty()
+                ? jobRepository.lockNextUnrouted(OrderJobStatus.QUEUED, page)
+                : jobRepository.lockNextIn(OrderJobStatus.QUEUED, owned, page);
+    }
+
+    void awaitWork(Duration timeout) throws InterruptedException {
+        wakeUps.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
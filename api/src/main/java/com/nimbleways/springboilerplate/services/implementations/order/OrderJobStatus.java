@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+public enum OrderJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,109 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.OrderJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Fixed pool of threads running queued jobs through OrderProcessingService.processOrder.
+// A job is claimed and finished in short transactions of its own; processOrder being
+// idempotent, a job queued again after a lost worker cannot process its order twice.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "orders.processing.async", name = "enabled", havingValue = "true")
+public class OrderJobWorkers {
+
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OrderJobQueue queue;
+    private final OrderProcessingService orderProcessingService;
+    private final OrderProcessingProperties.Async properties;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public OrderJobWorkers(OrderJobQueue queue,
+                           OrderProcessingService orderProcessingService,
+                           OrderProcessingProperties properties) {
+        this.queue = queue;
+        this.orderProcessingService = orderProcessingService;
+        this.properties = properties.getAsync();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 1; i <= properties.getWorkers(); i++) {
+            Thread worker = new Thread(this::workLoop, "order-job-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.processing.async.stuck-after:PT5M}")
+    public void requeueStuck() {
+        int requeued = queue.requeueStuck();
+        if (requeued > 0) {
+            log.warn("Queued {} stuck order jobs again", requeued);
+        }
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                if (!runNext()) {
+                    queue.awaitWork(properties.getPollInterval());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean runNext() {
+        Optional<OrderJob> job;
+        try {
+            job = queue.claimNext();
+        } catch (RuntimeException e) {
+            log.error("Cannot claim next order job", e);
+            return false;
+        }
+        job.ifPresent(this::run);
+        return job.isPresent();
+    }
+
+    // A job whose outcome cannot be recorded stays running until it is queued again
+    private void run(OrderJob job) {
+        String error = null;
+        try {
+            orderProcessingService.processOrder(job.getOrderId());
+        } catch (RuntimeException e) {
+            log.warn("Order job {} for order {} failed", job.getId(), job.getOrderId(), e);
+            error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+        }
+        try {
+            queue.finish(job.getId(), error == null ? null : error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH)));
+        } catch (RuntimeException e) {
+            log.error("Cannot record the outcome of order job {}", job.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class OrderProcessingMetrics {
+
+    private final Timer succeeded;
+    private final Timer failed;
+
+    public OrderProcessingMetrics(MeterRegistry meterRegistry) {
+        this.succeeded = Timer.builder("orders.process").tag("outcome", "success").register(meterRegistry);
+        this.failed = Timer.builder("orders.process").tag("outcome", "failure").register(meterRegistry);
+    }
+
+    public void recordSuccess(long startNanos) {
+        succeeded.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(long startNanos) {
+        failed.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,66 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "orders.processing")
+public class OrderProcessingProperties {
+
+    private Parallel parallel = new Parallel();
+    private Idempotency idempotency = new Idempotency();
+    private Async async = new Async();
+    private GroupCommit groupCommit = new GroupCommit();
+    private Partitioned partitioned = new Partitioned();
+
+    @Getter
+    @Setter
+    public static class Parallel {
+        private boolean enabled = false;
+        private int threshold = 100;
+        private int poolSize = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+        private int cacheSize = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+        private boolean enabled = false;
+        private int workers = 4;
+        // Queued jobs beyond which new requests are refused. A soft limit: concurrent
+        // requests may each pass the check, so the queue may exceed it by as many requests
+        // as are being enqueued at once across the nodes
+        private int capacity = 10_000;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // Running jobs older than this are assumed lost with their worker and queued again
+        private Duration stuckAfter = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class GroupCommit {
+        private boolean enabled = false;
+        // How long the first order of a group waits for others to join it
+        private Duration window = Duration.ofMillis(2);
+        private int maxBatchSize = 64;
+        private int queueCapacity = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Partitioned {
+        private boolean enabled = false;
+        // One writer thread per partition
+        private int partitions = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 10_000;
+    }
+}
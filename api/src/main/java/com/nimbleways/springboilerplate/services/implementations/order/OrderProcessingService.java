@@ -3,37 +3,197 @@ package com.nimbleways.springboilerplate.services.implementations.order;
 import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
 import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.enums.ProductType;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.services.implementations.cluster.PartitionLeases;
+import com.nimbleways.springboilerplate.services.implementations.cluster.PartitionNotOwnedException;
 import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCache;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class OrderProcessingService {
 
+    static final int ORDER_LOAD_CHUNK_SIZE = 500;
+
     private final OrderRepository orderRepository;
     private final ProductRuleFactory productRuleFactory;
+    private final ParallelItemProcessor parallelItemProcessor;
+    private final ProcessedOrderRegistry processedOrders;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderProcessingMetrics metrics;
+    private final ProductCache productCache;
+    private final OrderGroupCommitter groupCommitter;
+    private final PartitionedItemProcessor partitionedItemProcessor;
+    private final PartitionLeases partitionLeases;
 
     public OrderProcessingService(OrderRepository orderRepository,
-                                  ProductRuleFactory productRuleFactory) {
+                                  ProductRuleFactory productRuleFactory,
+                                  ObjectProvider<ParallelItemProcessor> parallelItemProcessor,
+                                  ProcessedOrderRegistry processedOrders,
+                                  PlatformTransactionManager transactionManager,
+                                  OrderProcessingMetrics metrics,
+                                  ProductCache productCache,
+                                  ObjectProvider<OrderGroupCommitter> groupCommitter,
+                                  ObjectProvider<PartitionedItemProcessor> partitionedItemProcessor,
+                                  ObjectProvider<PartitionLeases> partitionLeases) {
         this.orderRepository = orderRepository;
         this.productRuleFactory = productRuleFactory;
+        this.parallelItemProcessor = parallelItemProcessor.getIfAvailable();
+        this.processedOrders = processedOrders;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.metrics = metrics;
+        this.productCache = productCache;
+        this.groupCommitter = groupCommitter.getIfAvailable();
+        this.partitionedItemProcessor = partitionedItemProcessor.getIfAvailable();
+        this.partitionLeases = partitionLeases.getIfAvailable();
     }
 
+    /**
+     * Processes an order at most once. Repeated and concurrent calls for the same order
+     * return the stored response; the transaction is opened only by the call that does
+     * the work, so duplicates wait without holding a connection. In group commit mode that
+     * transaction is shared with concurrent orders.
+     */
     public ProcessOrderResponse processOrder(Long orderId) {
+        long start = System.nanoTime();
+        try {
+            ProcessOrderResponse response = processedOrders.processOnce(orderId, () -> groupCommitter != null
+                    ? groupCommitter.submit(orderId, () -> processOrderInTransaction(orderId))
+                    : transactionTemplate.execute(status -> processOrderInTransaction(orderId)));
+            metrics.recordSuccess(start);
+            return response;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(start);
+            throw e;
+        }
+    }
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+    private ProcessOrderResponse processOrderInTransaction(Long orderId) {
 
-        for (Product p : order.getItems()) {
+        processedOrders.claim(orderId);
 
-            ProductType type = ProductType.from(p.getType());
+        Collection<Product> items = productCache.isEnabled() ? loadCachedItems(orderId) : loadItems(orderId);
+        // The orders of a group share one transaction and stay on the group's thread
+        if (groupCommitter != null) {
+            processSequentially(items);
+        } else {
+            processItems(items);
+        }
+
+        return new ProcessOrderResponse(orderId);
+    }
 
-            productRuleFactory
-                    .getStrategy(type)
-                    .process(p);
+    private Collection<Product> loadItems(Long orderId) {
+        return orderRepository.findWithItemsById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"))
+                .getItems();
+    }
+
+    // Only the item ids are read from the join table; the products come from the cache
+    private Collection<Product> loadCachedItems(Long orderId) {
+        List<Long> itemIds = orderRepository.findItemIdsById(orderId);
+        if (itemIds.isEmpty()) {
+            throw new RuntimeException("Order not found");
+        }
+        return productCache.attach(itemIds.stream().filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Processes several orders in one transaction. Orders and their items are loaded
+     * with one fetch-join query per chunk of ids. A product shared by several orders is
+     * decremented once per order, each order issuing its own conditional update.
+     * Orders that were already processed are answered without being processed again.
+     * In cluster mode the batch is refused if an order is routed to a partition this node
+     * does not hold.
+     */
+    @Transactional
+    public List<ProcessOrderResponse> processOrders(List<Long> orderIds) {
+
+        Set<Long> distinctIds = new LinkedHashSet<>(orderIds);
+        Set<Long> toProcess = new LinkedHashSet<>(distinctIds);
+        toProcess.removeAll(processedOrders.findProcessed(distinctIds));
+        Map<Long, Order> ordersById = loadOrders(toProcess);
+
+        List<Long> missing = toProcess.stream()
+                .filter(id -> !ordersById.containsKey(id))
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Orders not found: " + missing);
+        }
+        if (partitionLeases != null) {
+            checkOwned(ordersById.values());
         }
 
-        return new ProcessOrderResponse(order.getId());
+        processedOrders.claimAll(toProcess);
+
+        List<ProcessOrderResponse> responses = new ArrayList<>(distinctIds.size());
+        for (Long orderId : distinctIds) {
+            if (toProcess.contains(orderId)) {
+                processItems(ordersById.get(orderId).getItems());
+            }
+            responses.add(new ProcessOrderResponse(orderId));
+        }
+        return responses;
+    }
+
+    // Orders queued as jobs are only run by the holder of their partition; a batch must not
+    // bypass that routing
+    private void checkOwned(Collection<Order> orders) {
+        Set<Integer> owned = partitionLeases.owned();
+        List<Long> notOwned = orders.stream()
+                .filter(order -> {
+                    Integer partition = partitionLeases.partitionOfItems(
+                            order.getItems().stream().map(Product::getId).toList());
+                    return partition != null && !owned.contains(partition);
+                })
+                .map(Order::getId)
+                .toList();
+        if (!notOwned.isEmpty()) {
+            throw new PartitionNotOwnedException(notOwned);
+        }
+    }
+
+    private Map<Long, Order> loadOrders(Set<Long> orderIds) {
+        Map<Long, Order> ordersById = new HashMap<>();
+        List<Long> ids = new ArrayList<>(orderIds);
+        for (int from = 0; from < ids.size(); from += ORDER_LOAD_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ORDER_LOAD_CHUNK_SIZE, ids.size()));
+            for (Order order : orderRepository.findDistinctByIdIn(chunk)) {
+                ordersById.put(order.getId(), order);
+            }
+        }
+        return ordersById;
+    }
+
+    private void processItems(Collection<Product> items) {
+        if (partitionedItemProcessor != null) {
+            partitionedItemProcessor.process(items);
+            return;
+        }
+        if (parallelItemProcessor != null && parallelItemProcessor.appliesTo(items.size())) {
+            parallelItemProcessor.process(items);
+            return;
+        }
+        processSequentially(items);
+    }
+
+    // One processAll call per product type
+    private void processSequentially(Collection<Product> items) {
+        ProductRuleFactory.byType(items).forEach((type, products) -> productRuleFactory
+                .getStrategy(type)
+                .processAll(products));
     }
 }
@@ -0,0 +1,8 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+public class OrderQueueFullException extends RuntimeException {
+
+    public OrderQueueFullException(long queued) {
+        super("Order queue is full (" + queued + " jobs queued)");
+    }
+}
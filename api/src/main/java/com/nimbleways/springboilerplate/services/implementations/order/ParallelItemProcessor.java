@@ -0,0 +1,94 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Splits the items of a large order into contiguous chunks sorted by type and product id,
+// one chunk per worker. Workers only reserve the stock of their chunk, without a database
+// transaction (see ItemReservation), so they hold no connection or row lock and never wait
+// for each other; the order thread then completes the items in the order transaction.
+//
+// In-memory stock mode only, like PartitionedItemProcessor: in database mode the
+// reservations are UPDATEs that must run in the order transaction, where they already go
+// out as one JDBC batch per product type, so enabling it in that mode fails startup.
+@Component
+@ConditionalOnProperty(prefix = "orders.processing.parallel", name = "enabled", havingValue = "true")
+public class ParallelItemProcessor {
+
+    private static final Comparator<Product> BY_TYPE_THEN_ID = Comparator
+            .comparing(Product::getType, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Product::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final ProductRuleFactory productRuleFactory;
+    private final OrderProcessingProperties.Parallel properties;
+    private final ExecutorService workers;
+
+    public ParallelItemProcessor(ProductRuleFactory productRuleFactory,
+                                 OrderProcessingProperties properties,
+                                 StockProperties stockProperties) {
+        if (!"in-memory".equals(stockProperties.getMode())) {
+            throw new IllegalStateException("orders.processing.parallel.enabled requires stock.mode=in-memory");
+        }
+        this.productRuleFactory = productRuleFactory;
+        this.properties = properties.getParallel();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.properties.getPoolSize(),
+                r -> new Thread(r, "order-item-worker-" + threadIndex.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdown();
+    }
+
+    public boolean appliesTo(int itemCount) {
+        return itemCount >= properties.getThreshold();
+    }
+
+    /**
+     * Reserves the chunks in parallel and completes them on the calling thread, which must
+     * be in the order transaction.
+     */
+    public void process(Collection<Product> items) {
+        List<CompletableFuture<ItemReservation>> futures = split(items).stream()
+                .map(chunk -> CompletableFuture.supplyAsync(
+                        () -> ItemReservation.reserve(productRuleFactory, chunk), workers))
+                .toList();
+        List<ItemReservation> reservations = new ArrayList<>(futures.size());
+        for (CompletableFuture<ItemReservation> future : futures) {
+            try {
+                reservations.add(future.join());
+            } catch (CompletionException e) {
+                reservations.add(ItemReservation.failed(e.getCause() instanceof RuntimeException cause
+                        ? cause : new IllegalStateException("Order item worker failed", e.getCause())));
+            }
+        }
+        ItemReservation.complete(productRuleFactory, reservations);
+    }
+
+    private List<List<Product>> split(Collection<Product> items) {
+        List<Product> sorted = items.stream().sorted(BY_TYPE_THEN_ID).toList();
+        int chunkCount = Math.min(properties.getPoolSize(), sorted.size());
+        List<List<Product>> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            int from = (int) ((long) sorted.size() * i / chunkCount);
+            int to = (int) ((long) sorted.size() * (i + 1) / chunkCount);
+            chunks.add(sorted.subList(from, to));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,157 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Product ids are hashed to a fixed set of partitions, each owned by one writer thread with
+// its own queue, so the stock of a product is only ever reserved by its partition's writer
+// and hot products never contend. An order is split into one slice per partition and the
+// caller waits for every slice. A writer reserves its slice without a database transaction
+// (see ItemReservation), so it holds no connection; the caller then registers the writers'
+// callbacks on the order transaction and completes the items itself, so notifications,
+// including outbox rows, and entity changes are written by the order transaction.
+//
+// In-memory stock mode only, and enabling it in database mode fails startup: there the
+// reservations are UPDATEs that must run in the order transaction, so the writers could not
+// own them, and the contention on hot product rows is left to the conditional updates.
+@Component
+@ConditionalOnProperty(prefix = "orders.processing.partitioned", name = "enabled", havingValue = "true")
+public class PartitionedItemProcessor {
+
+    private record Slice(List<Product> products, CompletableFuture<ItemReservation> result) {
+    }
+
+    private final ProductRuleFactory productRuleFactory;
+    private final List<BlockingQueue<Slice>> queues;
+    private final List<Thread> writers;
+    private volatile boolean running;
+
+    public PartitionedItemProcessor(ProductRuleFactory productRuleFactory,
+                                    OrderProcessingProperties properties,
+                                    StockProperties stockProperties) {
+        if (!"in-memory".equals(stockProperties.getMode())) {
+            throw new IllegalStateException("orders.processing.partitioned.enabled requires stock.mode=in-memory");
+        }
+        this.productRuleFactory = productRuleFactory;
+        OrderProcessingProperties.Partitioned partitioned = properties.getPartitioned();
+        this.queues = new ArrayList<>(partitioned.getPartitions());
+        this.writers = new ArrayList<>(partitioned.getPartitions());
+        for (int i = 0; i < partitioned.getPartitions(); i++) {
+            queues.add(new ArrayBlockingQueue<>(partitioned.getQueueCapacity()));
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<Slice> queue = queues.get(i);
+            Thread writer = new Thread(() -> runPartition(queue), "order-partition-" + (i + 1));
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.interrupt();
+            writer.join();
+        }
+        for (BlockingQueue<Slice> queue : queues) {
+            Slice slice;
+            while ((slice = queue.poll()) != null) {
+                slice.result().completeExceptionally(new IllegalStateException("Order partitions stopped"));
+            }
+        }
+    }
+
+    public int partitionOf(Long productId) {
+        return Math.floorMod(Long.hashCode(productId), queues.size());
+    }
+
+    /**
+     * Reserves the items in their partitions, waits for all of them and completes them on
+     * the calling thread, which must be in the order transaction. When a slice fails, the
+     * callbacks of the other slices still join that transaction so that its rollback gives
+     * their stock back.
+     */
+    public void process(Collection<Product> items) {
+        List<List<Product>> byPartition = new ArrayList<>(queues.size());
+        for (int i = 0; i < queues.size(); i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (Product p : items) {
+            byPartition.get(partitionOf(p.getId())).add(p);
+        }
+
+        List<Slice> slices = new ArrayList<>(queues.size());
+        RuntimeException interrupted = null;
+        try {
+            for (int i = 0; i < queues.size(); i++) {
+                if (!byPartition.get(i).isEmpty()) {
+                    Slice slice = new Slice(byPartition.get(i), new CompletableFuture<>());
+                    queues.get(i).put(slice);
+                    slices.add(slice);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = new IllegalStateException("Interrupted while queueing order items", e);
+        }
+        List<ItemReservation> reservations = awaitAll(slices);
+        if (interrupted != null) {
+            reservations.add(ItemReservation.failed(interrupted));
+        }
+        ItemReservation.complete(productRuleFactory, reservations);
+    }
+
+    private static List<ItemReservation> awaitAll(List<Slice> slices) {
+        List<ItemReservation> reservations = new ArrayList<>(slices.size() + 1);
+        for (Slice slice : slices) {
+            try {
+                reservations.add(slice.result().join());
+            } catch (CompletionException e) {
+                reservations.add(ItemReservation.failed(e.getCause() instanceof RuntimeException cause
+                        ? cause : new IllegalStateException("Order partition writer failed", e.getCause())));
+            }
+        }
+        return reservations;
+    }
+
+    private void runPartition(BlockingQueue<Slice> queue) {
+        while (running) {
+            Slice slice;
+            try {
+                slice = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            run(slice);
+        }
+    }
+
+    private void run(Slice slice) {
+        try {
+            slice.result().complete(ItemReservation.reserve(productRuleFactory, slice.products()));
+        } catch (RuntimeException | Error e) {
+            slice.result().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.entities.ProcessedOrder;
+import com.nimbleways.springboilerplate.repositories.ProcessedOrderRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Makes order processing idempotent. Concurrent calls for the same order share one
+// execution (single-flight), finished orders are answered from a bounded LRU cache,
+// and a processed_orders row inserted in the order transaction is the durable marker
+// that also stops duplicates coming from other instances.
+@Component
+public class ProcessedOrderRegistry {
+
+    private final ProcessedOrderRepository processedOrderRepository;
+    private final Map<Long, CompletableFuture<ProcessOrderResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, ProcessOrderResponse> responses;
+
+    public ProcessedOrderRegistry(ProcessedOrderRepository processedOrderRepository,
+                                  OrderProcessingProperties properties) {
+        this.processedOrderRepository = processedOrderRepository;
+        int cacheSize = properties.getIdempotency().getCacheSize();
+        this.responses = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProcessOrderResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public ProcessOrderResponse processOnce(Long orderId, Supplier<ProcessOrderResponse> processing) {
+        ProcessOrderResponse cached = responses.get(orderId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<ProcessOrderResponse> call = new CompletableFuture<>();
+        CompletableFuture<ProcessOrderResponse> leader = inFlight.putIfAbsent(orderId, call);
+        if (leader != null) {
+            return await(leader);
+        }
+
+        try {
+            ProcessOrderResponse response = run(orderId, processing);
+            responses.put(orderId, response);
+            call.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(orderId, call);
+        }
+    }
+
+    // Inserts and flushes the marker first, so a concurrent duplicate blocks on the key
+    // and fails before it touches any stock.
+    public void claim(Long orderId) {
+        processedOrderRepository.saveAndFlush(new ProcessedOrder(orderId, Instant.now()));
+    }
+
+    public void claimAll(Collection<Long> orderIds) {
+        Instant now = Instant.now();
+        processedOrderRepository.saveAllAndFlush(orderIds.stream()
+                .map(id -> new ProcessedOrder(id, now))
+                .toList());
+    }
+
+    public Set<Long> findProcessed(Collection<Long> orderIds) {
+        Set<Long> processed = new HashSet<>();
+        List<Long> unknown = orderIds.stream()
+                .filter(id -> !responses.containsKey(id))
+                .toList();
+        orderIds.stream().filter(responses::containsKey).forEach(processed::add);
+        if (!unknown.isEmpty()) {
+            processedOrderRepository.findAllById(unknown).forEach(marker -> processed.add(marker.getId()));
+        }
+        return processed;
+    }
+
+    private ProcessOrderResponse run(Long orderId, Supplier<ProcessOrderResponse> processing) {
+        try {
+            return processing.get();
+        } catch (DataIntegrityViolationException e) {
+            if (processedOrderRepository.existsById(orderId)) {
+                return new ProcessOrderResponse(orderId);
+            }
+            throw e;
+        }
+    }
+
+    private static ProcessOrderResponse await(CompletableFuture<ProcessOrderResponse> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
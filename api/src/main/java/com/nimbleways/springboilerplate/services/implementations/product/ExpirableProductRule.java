@@ -2,36 +2,48 @@ package com.nimbleways.springboilerplate.services.implementations.product;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.enums.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
 import com.nimbleways.springboilerplate.services.implementations.ProductService;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 @Component
 public class ExpirableProductRule implements IProductProcessing {
 
-    private final ProductRepository productRepository;
+    private final IStockLedger stockLedger;
     private final ProductService productService;
 
-    public ExpirableProductRule(ProductRepository productRepository,
-                                    ProductService productService) {
-        this.productRepository = productRepository;
+    public ExpirableProductRule(IStockLedger stockLedger, ProductService productService) {
+        this.stockLedger = stockLedger;
         this.productService = productService;
     }
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public void process(Product p) {
+        // One conditional decrement, tried by the service
+        productService.handleExpiredProduct(p);
+    }
 
-        if (p.getAvailable() > 0 &&
-                p.getExpiryDate().isAfter(LocalDate.now())) {
-
-            p.setAvailable(p.getAvailable() - 1);
-            productRepository.save(p);
+    // Expired products are not offered to the ledger; the batch still checks the expiry date
+    // of the others in the database, like the single-product decrement
+    @Override
+    public Set<Long> reserve(List<Product> products) {
+        LocalDate today = LocalDate.now();
+        return stockLedger.tryDecrementAllIfNotExpired(products.stream()
+                .filter(p -> p.getExpiryDate().isAfter(today))
+                .toList(), today);
+    }
 
-        } else {
-            productService.handleExpiredProduct(p);
-        }
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(List<Product> products, Set<Long> reserved) {
+        productService.handleExpiredProducts(products, reserved);
     }
 
     @Override
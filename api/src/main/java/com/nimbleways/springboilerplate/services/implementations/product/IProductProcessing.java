@@ -4,9 +4,26 @@ package com.nimbleways.springboilerplate.services.implementations.product;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.enums.ProductType;
 
+import java.util.List;
+import java.util.Set;
+
 public interface IProductProcessing {
 
     void process(Product product);
 
+    // Takes one unit of stock for each product of the chunk that can be sold and returns
+    // their ids. Only the stock ledger is called, so in in-memory stock mode a reservation
+    // may run off the order thread under transaction synchronization alone.
+    Set<Long> reserve(List<Product> products);
+
+    // Handles a reserved chunk in the order transaction: the products that were not
+    // reserved get their delay, out-of-stock or expiration handling.
+    void complete(List<Product> products, Set<Long> reserved);
+
+    // Products of this strategy's type, evaluated together with one stock update
+    default void processAll(List<Product> products) {
+        complete(products, reserve(products));
+    }
+
     ProductType getType();
 }
@@ -0,0 +1,70 @@
+package com.nimbleways.springboilerplate.services.implementations.product;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+
+import java.util.List;
+import java.util.Set;
+
+// Wraps a strategy with its per-type timer; ProductRuleFactory hands out the wrapped
+// strategy so sequential and parallel processing are measured alike.
+class MeteredProductProcessing implements IProductProcessing {
+
+    private final IProductProcessing delegate;
+    private final ProductProcessingMetrics metrics;
+    private final ProductType type;
+
+    MeteredProductProcessing(IProductProcessing delegate, ProductProcessingMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.type = delegate.getType();
+    }
+
+    @Override
+    public void process(Product product) {
+        long start = System.nanoTime();
+        try {
+            delegate.process(product);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(type, start);
+            throw e;
+        }
+        metrics.recordProcess(type, start);
+    }
+
+    // A chunk is timed as one sample
+    @Override
+    public void processAll(List<Product> products) {
+        long start = System.nanoTime();
+        try {
+            delegate.processAll(products);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(type, start);
+            throw e;
+        }
+        metrics.recordProcess(type, start);
+    }
+
+    // A reservation runs on a worker; the timer records the completion on the order thread
+    @Override
+    public Set<Long> reserve(List<Product> products) {
+        return delegate.reserve(products);
+    }
+
+    @Override
+    public void complete(List<Product> products, Set<Long> reserved) {
+        long start = System.nanoTime();
+        try {
+            delegate.complete(products, reserved);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(type, start);
+            throw e;
+        }
+        metrics.recordProcess(type, start);
+    }
+
+    @Override
+    public ProductType getType() {
+        return type;
+    }
+}
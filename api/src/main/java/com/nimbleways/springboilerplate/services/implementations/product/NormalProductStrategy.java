@@ -2,32 +2,52 @@ package com.nimbleways.springboilerplate.services.implementations.product;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.enums.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
 import com.nimbleways.springboilerplate.services.implementations.ProductService;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
 
 @Component
 public class NormalProductStrategy implements IProductProcessing {
 
-    private final ProductRepository productRepository;
+    private final IStockLedger stockLedger;
     private final ProductService productService;
+    private final ProductProcessingMetrics metrics;
 
-    public NormalProductStrategy(ProductRepository productRepository,
-                                 ProductService productService) {
-        this.productRepository = productRepository;
+    public NormalProductStrategy(IStockLedger stockLedger,
+                                 ProductService productService,
+                                 ProductProcessingMetrics metrics) {
+        this.stockLedger = stockLedger;
         this.productService = productService;
+        this.metrics = metrics;
     }
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public void process(Product p) {
-        if (p.getAvailable() > 0) {
-            p.setAvailable(p.getAvailable() - 1);
-            productRepository.save(p);
+        boolean decremented = stockLedger.tryDecrement(p);
+        if (decremented) {
+            metrics.branch(ProductProcessingMetrics.Branch.DECREMENT);
         } else if (p.getLeadTime() > 0) {
             productService.notifyDelay(p.getLeadTime(), p);
         }
     }
 
+    @Override
+    public Set<Long> reserve(List<Product> products) {
+        return stockLedger.tryDecrementAll(products);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(List<Product> products, Set<Long> reserved) {
+        productService.handleNormalProducts(products, reserved);
+    }
+
     @Override
     public ProductType getType() {
         return ProductType.NORMAL;
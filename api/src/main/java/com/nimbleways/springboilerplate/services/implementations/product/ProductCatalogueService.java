@@ -0,0 +1,44 @@
+package com.nimbleways.springboilerplate.services.implementations.product;
+
+import com.nimbleways.springboilerplate.dto.product.ProductCatalogueFilter;
+import com.nimbleways.springboilerplate.dto.product.ProductSummary;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+public class ProductCatalogueService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    private final ProductRepository productRepository;
+
+    public ProductCatalogueService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Hands each product of the page after {@code afterId} to the consumer as it is read,
+     * and returns the id to continue from, or null when this was the last page.
+     */
+    @Transactional(readOnly = true)
+    public Long forEachInPage(ProductCatalogueFilter filter, Long afterId, int pageSize, Consumer<ProductSummary> consumer) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        int count = 0;
+        Long lastId = null;
+        try (Stream<ProductSummary> page = productRepository.streamCatalogue(afterId == null ? 0L : afterId,
+                filter.type(), filter.inStock(), filter.notExpiredOn(), filter.inSeasonOn(), PageRequest.ofSize(size))) {
+            for (ProductSummary product : (Iterable<ProductSummary>) page::iterator) {
+                consumer.accept(product);
+                lastId = product.id();
+                count++;
+            }
+        }
+        return count == size ? lastId : null;
+    }
+}
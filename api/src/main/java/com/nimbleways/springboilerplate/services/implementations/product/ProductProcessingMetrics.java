@@ -0,0 +1,59 @@
+package com.nimbleways.springboilerplate.services.implementations.product;
+
+import com.nimbleways.springboilerplate.enums.ProductType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Meters are registered once per type and branch, so recording on the order path is a
+// map lookup and an atomic add, without building tags or allocating.
+@Component
+public class ProductProcessingMetrics {
+
+    public enum Branch {
+        DECREMENT,
+        DELAY,
+        OUT_OF_STOCK,
+        EXPIRED
+    }
+
+    private final Map<ProductType, Timer> processTimers = new EnumMap<>(ProductType.class);
+    private final Map<ProductType, Counter> processFailures = new EnumMap<>(ProductType.class);
+    private final Map<Branch, Counter> branches = new EnumMap<>(Branch.class);
+
+    public ProductProcessingMetrics(MeterRegistry meterRegistry) {
+        for (ProductType type : ProductType.values()) {
+            String tag = type.name().toLowerCase(Locale.ROOT);
+            processTimers.put(type, Timer.builder("products.process")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+            processFailures.put(type, Counter.builder("products.process.failures")
+                    .tag("type", tag)
+                    .register(meterRegistry));
+        }
+        for (Branch branch : Branch.values()) {
+            branches.put(branch, Counter.builder("products.branch")
+                    .tag("branch", branch.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    public void recordProcess(ProductType type, long startNanos) {
+        processTimers.get(type).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFailure(ProductType type, long startNanos) {
+        recordProcess(type, startNanos);
+        processFailures.get(type).increment();
+    }
+
+    public void branch(Branch branch) {
+        branches.get(branch).increment();
+    }
+}
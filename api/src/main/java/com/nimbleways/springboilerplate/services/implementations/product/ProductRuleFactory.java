@@ -1,30 +1,57 @@
 package com.nimbleways.springboilerplate.services.implementations.product;
 
+import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.enums.ProductType;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Component
 public class ProductRuleFactory {
 
-    private final Map<ProductType, IProductProcessing> strategyMap;
+    // Indexed by ProductType ordinal; every slot is filled or the context fails to start
+    private final IProductProcessing[] strategies = new IProductProcessing[ProductType.values().length];
 
-    public ProductRuleFactory(List<IProductProcessing> strategies) {
-        this.strategyMap = strategies.stream()
-                .collect(Collectors.toMap(
-                        IProductProcessing::getType,
-                        s -> s
-                ));
+    public ProductRuleFactory(List<IProductProcessing> strategies, ProductProcessingMetrics metrics) {
+        for (IProductProcessing strategy : strategies) {
+            int slot = strategy.getType().ordinal();
+            if (this.strategies[slot] != null) {
+                throw new IllegalStateException("Several strategies for type " + strategy.getType());
+            }
+            this.strategies[slot] = new MeteredProductProcessing(strategy, metrics);
+        }
+        List<ProductType> missing = Arrays.stream(ProductType.values())
+                .filter(type -> this.strategies[type.ordinal()] == null)
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("No strategy for types " + missing);
+        }
+    }
+
+    /**
+     * Groups products by type, for one processAll call per strategy. Fails like
+     * getStrategy on a product without a type.
+     */
+    public static Map<ProductType, List<Product>> byType(Collection<Product> products) {
+        Map<ProductType, List<Product>> byType = new EnumMap<>(ProductType.class);
+        for (Product p : products) {
+            if (p.getType() == null) {
+                throw new IllegalArgumentException("No strategy for type null");
+            }
+            byType.computeIfAbsent(p.getType(), type -> new ArrayList<>()).add(p);
+        }
+        return byType;
     }
 
     public IProductProcessing getStrategy(ProductType type) {
-        IProductProcessing strategy = strategyMap.get(type);
-        if (strategy == null) {
-            throw new IllegalArgumentException("No strategy for type " + type);
+        if (type == null) {
+            throw new IllegalArgumentException("No strategy for type null");
         }
-        return strategy;
+        return strategies[type.ordinal()];
     }
 }
@@ -2,39 +2,60 @@ package com.nimbleways.springboilerplate.services.implementations.product;
 
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.enums.ProductType;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
 import com.nimbleways.springboilerplate.services.implementations.ProductService;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 @Component
 public class SeasonalProductStrategy implements IProductProcessing {
 
-    private final ProductRepository productRepository;
+    private final IStockLedger stockLedger;
     private final ProductService productService;
+    private final ProductProcessingMetrics metrics;
 
-    public SeasonalProductStrategy(ProductRepository productRepository,
-                                   ProductService productService) {
-        this.productRepository = productRepository;
+    public SeasonalProductStrategy(IStockLedger stockLedger,
+                                   ProductService productService,
+                                   ProductProcessingMetrics metrics) {
+        this.stockLedger = stockLedger;
         this.productService = productService;
+        this.metrics = metrics;
     }
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public void process(Product p) {
 
-        boolean inSeason =
-                LocalDate.now().isAfter(p.getSeasonStartDate()) &&
-                        LocalDate.now().isBefore(p.getSeasonEndDate());
-
-        if (inSeason && p.getAvailable() > 0) {
-            p.setAvailable(p.getAvailable() - 1);
-            productRepository.save(p);
+        LocalDate today = LocalDate.now();
+        boolean decremented = today.isAfter(p.getSeasonStartDate())
+                && today.isBefore(p.getSeasonEndDate())
+                && stockLedger.tryDecrementIfInSeason(p, today);
+        if (decremented) {
+            metrics.branch(ProductProcessingMetrics.Branch.DECREMENT);
         } else {
             productService.handleSeasonalProduct(p);
         }
     }
 
+    @Override
+    public Set<Long> reserve(List<Product> products) {
+        LocalDate today = LocalDate.now();
+        return stockLedger.tryDecrementAllIfInSeason(products.stream()
+                .filter(p -> today.isAfter(p.getSeasonStartDate()) && today.isBefore(p.getSeasonEndDate()))
+                .toList(), today);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(List<Product> products, Set<Long> reserved) {
+        productService.handleSeasonalProducts(products, reserved);
+    }
+
     @Override
     public ProductType getType() {
         return ProductType.SEASONAL;
@@ -0,0 +1,30 @@
+package com.nimbleways.springboilerplate.services.implementations.product.cache;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+
+import java.time.LocalDate;
+
+// Immutable copy of a products row; every use gets its own Product instance
+record CachedProduct(Long id,
+                     Integer leadTime,
+                     Integer available,
+                     ProductType type,
+                     String name,
+                     LocalDate expiryDate,
+                     LocalDate seasonStartDate,
+                     LocalDate seasonEndDate) {
+
+    static CachedProduct of(Product p) {
+        return new CachedProduct(p.getId(), p.getLeadTime(), p.getAvailable(), p.getType(), p.getName(),
+                p.getExpiryDate(), p.getSeasonStartDate(), p.getSeasonEndDate());
+    }
+
+    Product toEntity() {
+        return new Product(id, leadTime, available, type, name, expiryDate, seasonStartDate, seasonEndDate);
+    }
+
+    CachedProduct withAvailable(int newAvailable) {
+        return new CachedProduct(id, leadTime, newAvailable, type, name, expiryDate, seasonStartDate, seasonEndDate);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nimbleways.springboilerplate.services.implementations.product.cache;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+// Writes stock changes through to the product cache once the order transaction commits.
+@Primary
+@Component
+@ConditionalOnProperty(prefix = "products.cache", name = "enabled", havingValue = "true")
+public class CachingStockLedger implements IStockLedger {
+
+    private final IStockLedger delegate;
+    private final ProductCache productCache;
+
+    public CachingStockLedger(@Qualifier("backingStockLedger") IStockLedger delegate, ProductCache productCache) {
+        this.delegate = delegate;
+        this.productCache = productCache;
+    }
+
+    @Override
+    public boolean tryDecrement(Product product) {
+        return decremented(product, delegate.tryDecrement(product));
+    }
+
+    @Override
+    public boolean tryDecrementIfNotExpired(Product product, LocalDate today) {
+        return decremented(product, delegate.tryDecrementIfNotExpired(product, today));
+    }
+
+    @Override
+    public boolean tryDecrementIfInSeason(Product product, LocalDate today) {
+        return decremented(product, delegate.tryDecrementIfInSeason(product, today));
+    }
+
+    @Override
+    public Set<Long> tryDecrementAll(Collection<Product> products) {
+        Set<Long> decremented = delegate.tryDecrementAll(products);
+        decremented.forEach(productCache::decremented);
+        return decremented;
+    }
+
+    @Override
+    public Set<Long> tryDecrementAllIfNotExpired(Collection<Product> products, LocalDate today) {
+        Set<Long> decremented = delegate.tryDecrementAllIfNotExpired(products, today);
+        decremented.forEach(productCache::decremented);
+        return decremented;
+    }
+
+    @Override
+    public Set<Long> tryDecrementAllIfInSeason(Collection<Product> products, LocalDate today) {
+        Set<Long> decremented = delegate.tryDecrementAllIfInSeason(products, today);
+        decremented.forEach(productCache::decremented);
+        return decremented;
+    }
+
+    @Override
+    public void clear(Product product) {
+        delegate.clear(product);
+        productCache.cleared(product.getId());
+    }
+
+    @Override
+    public void clearAll(Collection<Product> products) {
+        delegate.clearAll(products);
+        products.forEach(product -> productCache.cleared(product.getId()));
+    }
+
+    // The import invalidates the cached products itself
+    @Override
+    public void restocked(Map<Long, Integer> availableById) {
+        delegate.restocked(availableById);
+    }
+
+    private boolean decremented(Product product, boolean decremented) {
+        if (decremented) {
+            productCache.decremented(product.getId());
+        }
+        return decremented;
+    }
+}
@@ -0,0 +1,163 @@
+package com.nimbleways.springboilerplate.services.implementations.product.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.UnaryOperator;
+
+// Near cache of products rows for the order path. Cached snapshots are re-attached to the
+// persistence context without a select, so dirty checking keeps working on them.
+//
+// Committed writes are applied to the cache after commit. A row read from the database is
+// only cached if no write to that product was in flight or committed while it was being
+// read, so a slow reader can never put back a value older than a write it missed.
+@Component
+public class ProductCache {
+
+    private static final int STRIPES = 4096;
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+    private final Cache<Long, CachedProduct> cache;
+    private final AtomicIntegerArray writesInFlight = new AtomicIntegerArray(STRIPES);
+    private final AtomicLongArray writeStamps = new AtomicLongArray(STRIPES);
+
+    public ProductCache(ProductRepository productRepository,
+                        EntityManager entityManager,
+                        ProductCacheProperties properties,
+                        MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns managed products for the given ids, taking cached rows from memory and
+     * loading the others in one query.
+     */
+    public List<Product> attach(Collection<Long> productIds) {
+        Map<Long, CachedProduct> hits = cache.getAllPresent(productIds);
+        List<Product> products = new ArrayList<>(productIds.size());
+        Session session = entityManager.unwrap(Session.class);
+        for (CachedProduct cached : hits.values()) {
+            Product product = cached.toEntity();
+            session.buildLockRequest(LockOptions.NONE).lock(product);
+            products.add(product);
+        }
+
+        List<Long> misses = productIds.stream().filter(id -> !hits.containsKey(id)).toList();
+        if (misses.isEmpty()) {
+            return products;
+        }
+        long[] stamps = new long[misses.size()];
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i] = writeStamps.get(stripe(misses.get(i)));
+        }
+        Map<Long, Integer> missIndex = new HashMap<>(misses.size() * 2);
+        for (int i = 0; i < misses.size(); i++) {
+            missIndex.put(misses.get(i), i);
+        }
+        for (Product product : productRepository.findAllByIdIn(misses)) {
+            cacheIfUnchanged(product, stamps[missIndex.get(product.getId())]);
+            products.add(product);
+        }
+        return products;
+    }
+
+    public void decremented(Long productId) {
+        write(productId, cached -> cached.withAvailable(Math.max(0, cached.available() - 1)));
+    }
+
+    public void cleared(Long productId) {
+        write(productId, cached -> cached.withAvailable(0));
+    }
+
+    public void invalidate(Long productId) {
+        write(productId, cached -> null);
+    }
+
+    // For writes that cannot be traced back to products, such as a rolled back savepoint
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    CachedProduct getIfPresent(Long productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    private void cacheIfUnchanged(Product product, long stampBeforeRead) {
+        int stripe = stripe(product.getId());
+        if (writesInFlight.get(stripe) > 0 || writeStamps.get(stripe) != stampBeforeRead) {
+            return;
+        }
+        cache.asMap().putIfAbsent(product.getId(), CachedProduct.of(product));
+        if (writesInFlight.get(stripe) > 0 || writeStamps.get(stripe) != stampBeforeRead) {
+            cache.invalidate(product.getId());
+        }
+    }
+
+    private void write(Long productId, UnaryOperator<CachedProduct> change) {
+        if (!enabled) {
+            return;
+        }
+        int stripe = stripe(productId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(productId, stripe, change);
+            return;
+        }
+        writesInFlight.incrementAndGet(stripe);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        apply(productId, stripe, change);
+                    } else if (status == STATUS_UNKNOWN) {
+                        apply(productId, stripe, cached -> null);
+                    }
+                } finally {
+                    writesInFlight.decrementAndGet(stripe);
+                }
+            }
+        });
+    }
+
+    private void apply(Long productId, int stripe, UnaryOperator<CachedProduct> change) {
+        cache.asMap().computeIfPresent(productId, (id, cached) -> change.apply(cached));
+        writeStamps.incrementAndGet(stripe);
+    }
+
+    private static int stripe(Long productId) {
+        return (int) (productId ^ (productId >>> 32)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,26 @@
+package com.nimbleways.springboilerplate.services.implementations.product.cache;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Drops the cached row of any product written through the persistence context. The cache
+// is looked up lazily because the entity manager factory creates this listener.
+@Component
+public class ProductCacheListener {
+
+    private final ObjectProvider<ProductCache> productCache;
+
+    public ProductCacheListener(ObjectProvider<ProductCache> productCache) {
+        this.productCache = productCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Product product) {
+        productCache.getObject().invalidate(product.getId());
+    }
+}
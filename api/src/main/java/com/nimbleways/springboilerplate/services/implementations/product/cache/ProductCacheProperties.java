@@ -0,0 +1,18 @@
+package com.nimbleways.springboilerplate.services.implementations.product.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "products.cache")
+public class ProductCacheProperties {
+
+    private boolean enabled = false;
+    private long maximumSize = 10_000;
+    // Bounds how long another instance's writes can stay invisible here
+    private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
@@ -0,0 +1,29 @@
+package com.nimbleways.springboilerplate.services.implementations.product.exporter;
+
+import java.util.Locale;
+
+public enum ProductExportFormat {
+
+    NDJSON("application/x-ndjson", ".ndjson"),
+    CSV("text/csv", ".csv");
+
+    private final String mediaType;
+    private final String extension;
+
+    ProductExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ProductExportFormat from(String value) {
+        return ProductExportFormat.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,122 @@
+package com.nimbleways.springboilerplate.services.implementations.product.exporter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+// Stock snapshot of the products table, read with a forward-only JDBC cursor and written
+// row by row: no entity is loaded and memory does not grow with the table. The columns
+// match the product import, so an export can be imported back.
+@Service
+public class ProductExportService {
+
+    static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_PRODUCTS = "select id, name, type, available, lead_time, expiry_date,"
+            + " season_start_date, season_end_date from products order by id";
+    private static final String CSV_HEADER = "id,name,type,available,leadTime,expiryDate,seasonStartDate,seasonEndDate";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ProductExportService(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    // Read-only transaction: some drivers only honour the fetch size outside auto-commit
+    @Transactional(readOnly = true)
+    public void export(ProductExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ProductExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            jdbcTemplate.query(SELECT_PRODUCTS, (RowCallbackHandler) rs -> writeCsv(rs, writer));
+            writer.flush();
+        } else {
+            JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+            json.setRootValueSeparator(null);
+            jdbcTemplate.query(SELECT_PRODUCTS, (RowCallbackHandler) rs -> writeJson(rs, json));
+            json.flush();
+        }
+    }
+
+    private static void writeCsv(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(csv(rs.getString(2)));
+            writer.write(',');
+            writer.write(csv(rs.getString(3)));
+            for (int column = 4; column <= 5; column++) {
+                writer.write(',');
+                writer.write(csv(rs.getString(column)));
+            }
+            for (int column = 6; column <= 8; column++) {
+                writer.write(',');
+                writer.write(csv(date(rs, column)));
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeJson(ResultSet rs, JsonGenerator json) throws SQLException {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong(1));
+            json.writeStringField("name", rs.getString(2));
+            json.writeStringField("type", rs.getString(3));
+            writeInt(json, "available", rs, 4);
+            writeInt(json, "leadTime", rs, 5);
+            json.writeStringField("expiryDate", date(rs, 6));
+            json.writeStringField("seasonStartDate", date(rs, 7));
+            json.writeStringField("seasonEndDate", date(rs, 8));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeInt(JsonGenerator json, String field, ResultSet rs, int column) throws SQLException, IOException {
+        int value = rs.getInt(column);
+        if (rs.wasNull()) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    private static String date(ResultSet rs, int column) throws SQLException {
+        LocalDate date = rs.getObject(column, LocalDate.class);
+        return date == null ? null : date.toString();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
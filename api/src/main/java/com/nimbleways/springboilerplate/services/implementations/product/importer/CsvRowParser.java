@@ -0,0 +1,69 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// RFC 4180 fields on a single line: quoted fields may contain commas and doubled quotes,
+// but not line breaks. Columns are matched by the header names, in any order.
+class CsvRowParser implements IProductRowParser {
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "name", "type", "available", "leadTime", "expiryDate", "seasonStartDate", "seasonEndDate");
+
+    private final int[] positions = new int[COLUMNS.size()];
+
+    CsvRowParser(String header) {
+        List<String> names = split(header);
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            positions[i] = names.indexOf(COLUMNS.get(i));
+        }
+        for (String required : List.of("name", "type", "available", "leadTime")) {
+            if (!names.contains(required)) {
+                throw new IllegalArgumentException("CSV header has no " + required + " column");
+            }
+        }
+    }
+
+    @Override
+    public ProductImportRow parse(String line) {
+        List<String> fields = split(line);
+        return new ProductImportRow(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3),
+                field(fields, 4), field(fields, 5), field(fields, 6), field(fields, 7));
+    }
+
+    private String field(List<String> fields, int column) {
+        int position = positions[column];
+        return position < 0 || position >= fields.size() ? null : fields.get(position);
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,9 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+interface IProductRowParser {
+
+    /**
+     * Parses one line, or throws IllegalArgumentException when it is malformed.
+     */
+    ProductImportRow parse(String line);
+}
@@ -0,0 +1,22 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+class NdjsonRowParser implements IProductRowParser {
+
+    private final ObjectReader reader;
+
+    NdjsonRowParser(ObjectReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ProductImportRow parse(String line) {
+        try {
+            return reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+public enum ProductImportFormat {
+
+    NDJSON,
+    CSV;
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    public static ProductImportFormat fromMediaType(MediaType mediaType) {
+        if (MediaType.valueOf(CSV_MEDIA_TYPE).includes(mediaType)) {
+            return CSV;
+        }
+        if (MediaType.valueOf(NDJSON_MEDIA_TYPE).includes(mediaType)) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import media type " + mediaType);
+    }
+
+    public static ProductImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Cannot tell the import format of " + fileName);
+    }
+}
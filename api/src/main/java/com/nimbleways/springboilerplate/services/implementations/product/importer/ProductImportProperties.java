@@ -0,0 +1,19 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "products.import")
+public class ProductImportProperties {
+
+    // Rows per JDBC batch and per transaction
+    private int batchSize = 1000;
+    private long progressInterval = 50_000;
+    // Rejected rows beyond this are counted but not listed in the report
+    private int maxReportedRejections = 100;
+    // When set, the file is imported at startup and the application exits
+    private String file;
+}
@@ -0,0 +1,68 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+
+import java.time.LocalDate;
+
+// One imported line as read, before validation. Every field is kept as text so that
+// NDJSON and CSV lines go through the same checks.
+record ProductImportRow(String id,
+                        String name,
+                        String type,
+                        String available,
+                        String leadTime,
+                        String expiryDate,
+                        String seasonStartDate,
+                        String seasonEndDate) {
+
+    /**
+     * Returns the product described by this row, or throws IllegalArgumentException with
+     * the reason the row is rejected.
+     */
+    Product toProduct() {
+        if (isBlank(name)) {
+            throw new IllegalArgumentException("Missing name");
+        }
+        if (isBlank(type)) {
+            throw new IllegalArgumentException("Missing type");
+        }
+        ProductType productType = ProductType.from(type.trim());
+        Product product = new Product(
+                isBlank(id) ? null : Long.valueOf(id.trim()),
+                nonNegative("leadTime", leadTime),
+                nonNegative("available", available),
+                productType,
+                name.trim(),
+                date(expiryDate),
+                date(seasonStartDate),
+                date(seasonEndDate));
+        if (productType == ProductType.EXPIRABLE && product.getExpiryDate() == null) {
+            throw new IllegalArgumentException("Missing expiryDate");
+        }
+        if (productType == ProductType.SEASONAL
+                && (product.getSeasonStartDate() == null || product.getSeasonEndDate() == null)) {
+            throw new IllegalArgumentException("Missing season dates");
+        }
+        return product;
+    }
+
+    private static int nonNegative(String field, String value) {
+        if (isBlank(value)) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        int number = Integer.parseInt(value.trim());
+        if (number < 0) {
+            throw new IllegalArgumentException("Negative " + field);
+        }
+        return number;
+    }
+
+    private static LocalDate date(String value) {
+        return isBlank(value) ? null : LocalDate.parse(value.trim());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
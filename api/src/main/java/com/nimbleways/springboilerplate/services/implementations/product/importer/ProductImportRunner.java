@@ -0,0 +1,57 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import com.nimbleways.springboilerplate.dto.product.ProductImportReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+// Command line import: --products.import.file=catalogue.csv[.gz] imports the file at
+// startup, then exits with status 0, or 1 when rows were rejected.
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "products.import", name = "file")
+public class ProductImportRunner implements ApplicationRunner {
+
+    private final ProductImportService importService;
+    private final ProductImportProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    public ProductImportRunner(ProductImportService importService,
+                               ProductImportProperties properties,
+                               ConfigurableApplicationContext context) {
+        this.importService = importService;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path file = Path.of(properties.getFile());
+        ProductImportReport report;
+        try (InputStream in = open(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            report = importService.importProducts(reader, ProductImportFormat.fromFileName(file.toString()));
+        }
+        report.rejections().forEach(row -> log.warn("Line {} rejected: {}", row.line(), row.reason()));
+        int status = report.rejected() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return file.toString().endsWith(".gz") ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+}
@@ -0,0 +1,101 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbleways.springboilerplate.dto.product.ProductImportReport;
+import com.nimbleways.springboilerplate.entities.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the input line by line and writes it one batch at a time, so only the current
+// batch and the capped list of rejections are held in memory.
+@Slf4j
+@Service
+public class ProductImportService {
+
+    record ParsedRow(long line, Product product) {
+    }
+
+    private final ProductImportWriter writer;
+    private final ProductImportProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public ProductImportService(ProductImportWriter writer, ProductImportProperties properties, ObjectMapper objectMapper) {
+        this.writer = writer;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    public ProductImportReport importProducts(BufferedReader reader, ProductImportFormat format) {
+        Progress progress = new Progress();
+        try {
+            IProductRowParser parser = format == ProductImportFormat.CSV
+                    ? new CsvRowParser(headerOf(reader, progress))
+                    : new NdjsonRowParser(objectMapper.readerFor(ProductImportRow.class));
+            List<ParsedRow> batch = new ArrayList<>(properties.getBatchSize());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long lineNumber = ++progress.lines;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(new ParsedRow(lineNumber, parser.parse(line).toProduct()));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    progress.reject(lineNumber, e.getMessage());
+                }
+                if (batch.size() == properties.getBatchSize()) {
+                    write(batch, progress);
+                }
+            }
+            write(batch, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Product import done: {} accepted, {} rejected", progress.accepted, progress.rejected);
+        return new ProductImportReport(progress.accepted, progress.rejected, progress.rejections);
+    }
+
+    private static String headerOf(BufferedReader reader, Progress progress) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input has no header");
+        }
+        progress.lines++;
+        return header;
+    }
+
+    private void write(List<ParsedRow> batch, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ParsedRow> unknown = writer.write(batch);
+        unknown.forEach(row -> progress.reject(row.line(), "Unknown product id " + row.product().getId()));
+        long before = progress.accepted;
+        progress.accepted += batch.size() - unknown.size();
+        if (progress.accepted / properties.getProgressInterval() != before / properties.getProgressInterval()) {
+            log.info("Product import: {} accepted, {} rejected", progress.accepted, progress.rejected);
+        }
+        batch.clear();
+    }
+
+    private final class Progress {
+        private long lines;
+        private long accepted;
+        private long rejected;
+        private final List<ProductImportReport.RejectedRow> rejections = new ArrayList<>();
+
+        private void reject(long line, String reason) {
+            rejected++;
+            if (rejections.size() < properties.getMaxReportedRejections()) {
+                rejections.add(new ProductImportReport.RejectedRow(line, reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCache;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rows with an id update that product; rows without one are inserted, so a batch costs one
+// update batch and one insert batch. The stock of updated products is handed to the stock
+// ledger, which may hold it outside products.available. Inserted products are not: no
+// ledger or cache holds anything for an id that did not exist, and the first order reads
+// their stock from the row.
+@Component
+class ProductImportWriter {
+
+    private static final String INSERT = "insert into products (lead_time, available, type, name, expiry_date,"
+            + " season_start_date, season_end_date) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "update products set lead_time = ?, available = ?, type = ?, name = ?,"
+            + " expiry_date = ?, season_start_date = ?, season_end_date = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductCache productCache;
+    private final IStockLedger stockLedger;
+
+    ProductImportWriter(JdbcTemplate jdbcTemplate, ProductCache productCache, IStockLedger stockLedger) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productCache = productCache;
+        this.stockLedger = stockLedger;
+    }
+
+    /**
+     * Writes the batch in one transaction and returns the rows whose id matched no product.
+     */
+    @Transactional
+    public List<ProductImportService.ParsedRow> write(List<ProductImportService.ParsedRow> batch) {
+        List<ProductImportService.ParsedRow> updates = new ArrayList<>();
+        List<ProductImportService.ParsedRow> inserts = new ArrayList<>();
+        for (ProductImportService.ParsedRow row : batch) {
+            (row.product().getId() == null ? inserts : updates).add(row);
+        }
+        insert(inserts);
+        return update(updates);
+    }
+
+    private void insert(List<ProductImportService.ParsedRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows, rows.size(), (ps, row) -> bind(ps, 1, row.product()));
+    }
+
+    private List<ProductImportService.ParsedRow> update(List<ProductImportService.ParsedRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE, rows, rows.size(), (ps, row) -> {
+            int index = bind(ps, 1, row.product());
+            ps.setLong(index, row.product().getId());
+        });
+        List<ProductImportService.ParsedRow> unknown = new ArrayList<>();
+        Map<Long, Integer> restocked = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Product product = rows.get(i).product();
+            if (counts[0][i] == 0) {
+                unknown.add(rows.get(i));
+            } else {
+                productCache.invalidate(product.getId());
+                restocked.put(product.getId(), product.getAvailable());
+            }
+        }
+        if (!restocked.isEmpty()) {
+            stockLedger.restocked(restocked);
+        }
+        return unknown;
+    }
+
+    private static int bind(PreparedStatement ps, int index, Product product) throws SQLException {
+        ps.setInt(index++, product.getLeadTime());
+        ps.setInt(index++, product.getAvailable());
+        ps.setString(index++, product.getType().name());
+        ps.setString(index++, product.getName());
+        setDate(ps, index++, product.getExpiryDate());
+        setDate(ps, index++, product.getSeasonStartDate());
+        setDate(ps, index++, product.getSeasonEndDate());
+        return index;
+    }
+
+    private static void setDate(PreparedStatement ps, int index, LocalDate date) throws SQLException {
+        if (date == null) {
+            ps.setNull(index, Types.DATE);
+        } else {
+            ps.setDate(index, Date.valueOf(date));
+        }
+    }
+}
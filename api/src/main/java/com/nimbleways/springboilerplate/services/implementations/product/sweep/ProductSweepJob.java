@@ -0,0 +1,136 @@
+package com.nimbleways.springboilerplate.services.implementations.product.sweep;
+
+import com.nimbleways.springboilerplate.dto.product.ProductSummary;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.notification.INotificationDispatcher;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCache;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Zeroes the stock of expired and out-of-season products ahead of orders, so an order
+// touching them no longer has to. Each chunk is selected, zeroed with one conditional update
+// batch and notified in its own short transaction; notifications go through the dispatcher
+// in that transaction, so in outbox mode they are written in the same commit. Only the rows
+// the batch zeroed are notified: a product sold out or cleared by an order since the select
+// is left to that order.
+//
+// Database stock mode only: the in-memory engine owns stock and would write it back.
+@Slf4j
+@Component
+@ConditionalOnExpression("${products.sweep.enabled:false} and '${stock.mode:database}' == 'database'")
+public class ProductSweepJob {
+
+    private static final String CLEAR_AVAILABLE = "update products set available = 0 where id = ? and available > 0";
+
+    enum Rule {
+        EXPIRED,
+        OUT_OF_SEASON
+    }
+
+    private final ProductRepository productRepository;
+    private final INotificationDispatcher notificationDispatcher;
+    private final ProductCache productCache;
+    private final StockShards stockShards;
+    private final ProductSweepProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter expired;
+    private final Counter outOfSeason;
+
+    public ProductSweepJob(ProductRepository productRepository,
+                           INotificationDispatcher notificationDispatcher,
+                           ProductCache productCache,
+                           StockShards stockShards,
+                           ProductSweepProperties properties,
+                           TransactionTemplate transactionTemplate,
+                           JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.productCache = productCache;
+        this.stockShards = stockShards;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.expired = Counter.builder("products.sweep.cleared").tag("rule", "expired").register(meterRegistry);
+        this.outOfSeason = Counter.builder("products.sweep.cleared").tag("rule", "out_of_season").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${products.sweep.cron:0 5 0 * * *}")
+    public void sweep() {
+        sweep(LocalDate.now());
+    }
+
+    void sweep(LocalDate today) {
+        long expiredCount = sweep(Rule.EXPIRED, today);
+        long outOfSeasonCount = sweep(Rule.OUT_OF_SEASON, today);
+        log.info("Product sweep cleared {} expired and {} out-of-season products", expiredCount, outOfSeasonCount);
+    }
+
+    private long sweep(Rule rule, LocalDate today) {
+        long cleared = 0;
+        long afterId = 0;
+        Chunk chunk;
+        do {
+            long from = afterId;
+            chunk = transactionTemplate.execute(status -> sweepChunk(rule, today, from));
+            if (chunk.selected() == 0) {
+                break;
+            }
+            afterId = chunk.lastId();
+            cleared += chunk.cleared();
+        } while (chunk.selected() == properties.getChunkSize());
+        return cleared;
+    }
+
+    private Chunk sweepChunk(Rule rule, LocalDate today, long afterId) {
+        PageRequest page = PageRequest.ofSize(properties.getChunkSize());
+        List<ProductSummary> selected = rule == Rule.EXPIRED
+                ? productRepository.findExpiredInStock(ProductType.EXPIRABLE, today, afterId, page)
+                : productRepository.findOutOfSeasonInStock(ProductType.SEASONAL, today, afterId, page);
+        if (selected.isEmpty()) {
+            return new Chunk(0, afterId, 0);
+        }
+        List<ProductSummary> cleared = clearAvailable(selected);
+        stockShards.clear(cleared.stream().map(ProductSummary::id).toList());
+        for (ProductSummary product : cleared) {
+            productCache.invalidate(product.id());
+            if (rule == Rule.EXPIRED) {
+                notificationDispatcher.sendExpirationNotification(product.name(), product.expiryDate());
+            } else {
+                notificationDispatcher.sendOutOfStockNotification(product.name());
+            }
+        }
+        (rule == Rule.EXPIRED ? expired : outOfSeason).increment(cleared.size());
+        return new Chunk(selected.size(), selected.get(selected.size() - 1).id(), cleared.size());
+    }
+
+    // Returns the products whose row still had stock when the update ran
+    private List<ProductSummary> clearAvailable(List<ProductSummary> products) {
+        int[][] counts = jdbcTemplate.batchUpdate(CLEAR_AVAILABLE, products, products.size(),
+                (ps, product) -> ps.setLong(1, product.id()));
+        List<ProductSummary> cleared = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            if (counts[0][i] > 0) {
+                cleared.add(products.get(i));
+            }
+        }
+        return cleared;
+    }
+
+    private record Chunk(int selected, long lastId, int cleared) {
+    }
+}
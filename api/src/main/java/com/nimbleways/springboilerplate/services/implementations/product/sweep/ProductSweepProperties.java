@@ -0,0 +1,17 @@
+package com.nimbleways.springboilerplate.services.implementations.product.sweep;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "products.sweep")
+public class ProductSweepProperties {
+
+    private boolean enabled = false;
+    // Just after midnight, when the day that decides expiry and season end changes
+    private String cron = "0 5 0 * * *";
+    // Products zeroed per transaction, which bounds how long row locks are held
+    private int chunkSize = 500;
+}
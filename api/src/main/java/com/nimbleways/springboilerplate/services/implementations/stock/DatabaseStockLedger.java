@@ -0,0 +1,171 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+@Component
+@Qualifier("backingStockLedger")
+@ConditionalOnProperty(prefix = "stock", name = "mode", havingValue = "database", matchIfMissing = true)
+public class DatabaseStockLedger implements IStockLedger {
+
+    // Same conditions as the JPQL decrements of ProductRepository
+    private static final String DECREMENT_AVAILABLE =
+            "update products set available = available - 1 where id = ? and available > 0"
+            + " and not exists (select 1 from product_stock_shards s where s.product_id = products.id)";
+    private static final String DECREMENT_AVAILABLE_IF_NOT_EXPIRED = DECREMENT_AVAILABLE
+            + " and expiry_date > ?";
+    private static final String DECREMENT_AVAILABLE_IF_IN_SEASON = DECREMENT_AVAILABLE
+            + " and season_start_date < ? and season_end_date > ?";
+
+    private final ProductRepository productRepository;
+    private final StockShards stockShards;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseStockLedger(ProductRepository productRepository, StockShards stockShards, JdbcTemplate jdbcTemplate) {
+        this.productRepository = productRepository;
+        this.stockShards = stockShards;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean tryDecrement(Product product) {
+        if (stockShards.isSharded(product.getId())) {
+            return stockShards.tryDecrement(product.getId());
+        }
+        return productRepository.decrementAvailable(product.getId()) > 0;
+    }
+
+    @Override
+    public boolean tryDecrementIfNotExpired(Product product, LocalDate today) {
+        if (stockShards.isSharded(product.getId())) {
+            return decrementShardedIfNotExpired(product, today);
+        }
+        return productRepository.decrementAvailableIfNotExpired(product.getId(), today) > 0;
+    }
+
+    @Override
+    public boolean tryDecrementIfInSeason(Product product, LocalDate today) {
+        if (stockShards.isSharded(product.getId())) {
+            return decrementShardedIfInSeason(product, today);
+        }
+        return productRepository.decrementAvailableIfInSeason(product.getId(), today) > 0;
+    }
+
+    @Override
+    public Set<Long> tryDecrementAll(Collection<Product> products) {
+        return decrementAll(products, product -> stockShards.tryDecrement(product.getId()),
+                product -> productRepository.decrementAvailable(product.getId()) > 0,
+                DECREMENT_AVAILABLE, 0, null);
+    }
+
+    @Override
+    public Set<Long> tryDecrementAllIfNotExpired(Collection<Product> products, LocalDate today) {
+        return decrementAll(products, product -> decrementShardedIfNotExpired(product, today),
+                product -> productRepository.decrementAvailableIfNotExpired(product.getId(), today) > 0,
+                DECREMENT_AVAILABLE_IF_NOT_EXPIRED, 1, today);
+    }
+
+    @Override
+    public Set<Long> tryDecrementAllIfInSeason(Collection<Product> products, LocalDate today) {
+        return decrementAll(products, product -> decrementShardedIfInSeason(product, today),
+                product -> productRepository.decrementAvailableIfInSeason(product.getId(), today) > 0,
+                DECREMENT_AVAILABLE_IF_IN_SEASON, 2, today);
+    }
+
+    // Sharded products are checked against the dates of the loaded entity, which the
+    // conditional update would otherwise read from the products row
+    private boolean decrementShardedIfNotExpired(Product product, LocalDate today) {
+        return product.getExpiryDate().isAfter(today) && stockShards.tryDecrement(product.getId());
+    }
+
+    private boolean decrementShardedIfInSeason(Product product, LocalDate today) {
+        return today.isAfter(product.getSeasonStartDate())
+                && today.isBefore(product.getSeasonEndDate())
+                && stockShards.tryDecrement(product.getId());
+    }
+
+    // Sharded products go through their slots, and a chunk of a single other product takes
+    // the single-product update. The conditional decrements of the other products go out as
+    // one JDBC batch, in id order so that concurrent chunks lock their rows in the same
+    // order. Pending entity changes, such as a cleared stock, are flushed first so the batch
+    // sees them like the JPQL updates would.
+    private Set<Long> decrementAll(Collection<Product> products, Predicate<Product> sharded, Predicate<Product> single,
+                                   String batchUpdate, int dateParameters, LocalDate today) {
+        Set<Long> decremented = new HashSet<>();
+        Set<Long> shardedIds = stockShards.shardedAmong(products.stream().map(Product::getId).toList());
+        List<Product> unsharded = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (!shardedIds.contains(product.getId())) {
+                unsharded.add(product);
+            } else if (sharded.test(product)) {
+                decremented.add(product.getId());
+            }
+        }
+        if (unsharded.size() == 1) {
+            if (single.test(unsharded.get(0))) {
+                decremented.add(unsharded.get(0).getId());
+            }
+        } else if (!unsharded.isEmpty()) {
+            List<Long> ids = unsharded.stream().map(Product::getId).sorted().toList();
+            productRepository.flush();
+            int[] updated = jdbcTemplate.batchUpdate(batchUpdate, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, ids.get(i));
+                    for (int d = 0; d < dateParameters; d++) {
+                        ps.setObject(2 + d, today);
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return ids.size();
+                }
+            });
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] > 0) {
+                    decremented.add(ids.get(i));
+                }
+            }
+        }
+        return decremented;
+    }
+
+    @Override
+    public void clear(Product product) {
+        // Written by dirty checking when the order transaction flushes
+        product.setAvailable(0);
+        stockShards.clear(List.of(product.getId()));
+    }
+
+    @Override
+    public void clearAll(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        products.forEach(product -> product.setAvailable(0));
+        stockShards.clear(products.stream().map(Product::getId).toList());
+    }
+
+    // The import already wrote products.available, sharded products also need their slots
+    @Override
+    public void restocked(Map<Long, Integer> availableById) {
+        stockShards.restock(availableById);
+    }
+}
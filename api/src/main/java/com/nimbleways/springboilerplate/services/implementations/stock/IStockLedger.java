@@ -0,0 +1,60 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.Product;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public interface IStockLedger {
+
+    boolean tryDecrement(Product product);
+
+    boolean tryDecrementIfNotExpired(Product product, LocalDate today);
+
+    boolean tryDecrementIfInSeason(Product product, LocalDate today);
+
+    void clear(Product product);
+
+    // Stock written straight to the products table by the product import, in the caller's
+    // transaction: the ledger takes these values over for the given products.
+    void restocked(Map<Long, Integer> availableById);
+
+    // Chunk variants: each product is decremented by one under the same condition as the
+    // single-product call, and the ids of the decremented products are returned.
+    default Set<Long> tryDecrementAll(Collection<Product> products) {
+        Set<Long> decremented = new HashSet<>();
+        for (Product product : products) {
+            if (tryDecrement(product)) {
+                decremented.add(product.getId());
+            }
+        }
+        return decremented;
+    }
+
+    default Set<Long> tryDecrementAllIfNotExpired(Collection<Product> products, LocalDate today) {
+        Set<Long> decremented = new HashSet<>();
+        for (Product product : products) {
+            if (tryDecrementIfNotExpired(product, today)) {
+                decremented.add(product.getId());
+            }
+        }
+        return decremented;
+    }
+
+    default Set<Long> tryDecrementAllIfInSeason(Collection<Product> products, LocalDate today) {
+        Set<Long> decremented = new HashSet<>();
+        for (Product product : products) {
+            if (tryDecrementIfInSeason(product, today)) {
+                decremented.add(product.getId());
+            }
+        }
+        return decremented;
+    }
+
+    default void clearAll(Collection<Product> products) {
+        products.forEach(this::clear);
+    }
+}
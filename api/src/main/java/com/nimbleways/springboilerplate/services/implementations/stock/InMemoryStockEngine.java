@@ -0,0 +1,350 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Authoritative stock held in memory: decrements are lock-free CAS on per-product counters,
+// and changed counters are written back to the products table in batches by a background
+// flusher. Counters are rebuilt from the table on startup, or, with the journal enabled,
+// recovered from its latest snapshot and journal tail; recovered counters are then written
+// back to the table by the flusher. Rows that hold neither of the last two values the
+// engine flushed to them were changed while it was down, by an import or by hand: those
+// products take the table's stock instead.
+@Slf4j
+@Component
+@Qualifier("backingStockLedger")
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(prefix = "stock", name = "mode", havingValue = "in-memory")
+public class InMemoryStockEngine implements IStockLedger {
+
+    private static final String UPDATE_AVAILABLE = "update products set available = ? where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockProperties.InMemory properties;
+    private final StockCounterTable counters;
+    private final Queue<StockCounter> dirtyCounters = new ConcurrentLinkedQueue<>();
+    private StockJournal journal;
+    private ScheduledExecutorService flusher;
+
+    public InMemoryStockEngine(JdbcTemplate jdbcTemplate, StockProperties stockProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = stockProperties.getInMemory();
+        this.counters = new StockCounterTable(properties.getInitialCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        StockProperties.Journal journalProperties = properties.getJournal();
+        if (journalProperties.isEnabled()) {
+            journal = new StockJournal(Path.of(journalProperties.getDirectory()), counters, journalProperties.getMaxRecords());
+            if (journal.recover(this::enqueue)) {
+                int changed = reconcile();
+                log.info("Stock engine recovered {} products from the journal, {} changed in the table since",
+                        counters.size(), changed);
+            } else {
+                rebuild();
+            }
+            journal.snapshot();
+        } else {
+            rebuild();
+        }
+        long intervalMillis = properties.getFlushInterval().toMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        if (journal != null) {
+            long snapshotMillis = journalProperties.getSnapshotInterval().toMillis();
+            flusher.scheduleWithFixedDelay(this::snapshotQuietly, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+        if (journal != null) {
+            journal.snapshot();
+        }
+    }
+
+    void rebuild() {
+        jdbcTemplate.query("select id, available from products", rs -> {
+            long productId = rs.getLong(1);
+            int available = rs.getInt(2);
+            counters.computeIfAbsent(productId, () -> available);
+        });
+        log.info("Stock engine rebuilt with {} products", counters.size());
+    }
+
+    private int reconcile() {
+        int[] changed = {0};
+        jdbcTemplate.query("select id, available from products", rs -> {
+            long productId = rs.getLong(1);
+            int available = rs.getInt(2);
+            StockCounter counter = counters.computeIfAbsent(productId, () -> available);
+            if (!counter.wrote(available)) {
+                counter.reset(available);
+                changed[0]++;
+            }
+        });
+        return changed[0];
+    }
+
+    @Override
+    public boolean tryDecrement(Product product) {
+        return journaled(() -> {
+            StockCounter counter = counterFor(product);
+            int restocks = counter.restocks();
+            int current;
+            do {
+                current = counter.available();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!change(StockJournal.DECREMENT, counter, current, current - 1));
+            changed(counter, 1, restocks);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean tryDecrementIfNotExpired(Product product, LocalDate today) {
+        return product.getExpiryDate().isAfter(today) && tryDecrement(product);
+    }
+
+    @Override
+    public boolean tryDecrementIfInSeason(Product product, LocalDate today) {
+        return today.isAfter(product.getSeasonStartDate())
+                && today.isBefore(product.getSeasonEndDate())
+                && tryDecrement(product);
+    }
+
+    @Override
+    public void clear(Product product) {
+        journaled(() -> {
+            StockCounter counter = counterFor(product);
+            int restocks = counter.restocks();
+            int previous;
+            do {
+                previous = counter.available();
+                if (previous == 0) {
+                    return null;
+                }
+            } while (!change(StockJournal.CLEAR, counter, previous, 0));
+            changed(counter, previous, restocks);
+            return null;
+        });
+    }
+
+    // The counters take the imported stock once the import commits, so the flusher does not
+    // write the previous stock back over it. Decrements made in between are overwritten,
+    // as they are in the table.
+    @Override
+    public void restocked(Map<Long, Integer> availableById) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    availableById.forEach(InMemoryStockEngine.this::restock);
+                }
+            });
+        } else {
+            availableById.forEach(this::restock);
+        }
+    }
+
+    private void restock(long productId, int available) {
+        journaled(() -> {
+            StockCounter counter = counters.computeIfAbsent(productId, () -> {
+                if (journal != null) {
+                    journal.append(StockJournal.SEED, productId, available);
+                }
+                return available;
+            });
+            counter.restocking();
+            int previous;
+            do {
+                previous = counter.available();
+            } while (previous != available && !change(StockJournal.RESTOCK, counter, previous, available));
+            // The import wrote the row; a flush in progress may still write the previous stock
+            record(StockJournal.FLUSH, counter, available);
+            counter.flushing(available);
+            enqueue(counter);
+            return null;
+        });
+    }
+
+    public int available(long productId) {
+        StockCounter counter = counters.get(productId);
+        return counter == null ? 0 : counter.available();
+    }
+
+    public void flush() {
+        List<StockCounter> pending = new ArrayList<>();
+        StockCounter counter;
+        while ((counter = dirtyCounters.poll()) != null) {
+            pending.add(counter);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        pending.sort(Comparator.comparingLong(StockCounter::productId));
+        int batchSize = properties.getFlushBatchSize();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            write(pending.subList(from, Math.min(from + batchSize, pending.size())));
+        }
+    }
+
+    // The values are journaled before they are written, and journaled back if the write fails
+    private void write(List<StockCounter> batch) {
+        int[] values = new int[batch.size()];
+        journaled(() -> {
+            for (int i = 0; i < values.length; i++) {
+                StockCounter counter = batch.get(i);
+                counter.markClean();
+                values[i] = counter.available();
+                record(StockJournal.FLUSH, counter, values[i]);
+                counter.flushing(values[i]);
+            }
+            return null;
+        });
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_AVAILABLE, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setInt(1, values[i]);
+                    ps.setLong(2, batch.get(i).productId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return values.length;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Stock flush of {} products failed, will retry", batch.size(), e);
+            journaled(() -> {
+                for (StockCounter counter : batch) {
+                    int unchanged = counter.previousFlushed();
+                    record(StockJournal.FLUSH, counter, unchanged);
+                    counter.flushing(unchanged);
+                }
+                return null;
+            });
+            batch.forEach(this::enqueue);
+        }
+    }
+
+    void snapshot() {
+        journal.snapshot();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Stock snapshot failed", e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Stock flush failed", e);
+        }
+    }
+
+    // The entity was just read from the table, and a product without a counter has never
+    // been touched by the engine, so its loaded stock is the current value.
+    private StockCounter counterFor(Product product) {
+        return counters.computeIfAbsent(product.getId(), () -> {
+            int available = product.getAvailable() == null ? 0 : product.getAvailable();
+            if (journal != null) {
+                journal.append(StockJournal.SEED, product.getId(), available);
+            }
+            return available;
+        });
+    }
+
+    private <T> T journaled(Supplier<T> change) {
+        return journal == null ? change.get() : journal.record(change);
+    }
+
+    // Records a change before making it. A change beaten by a concurrent one is recorded
+    // back out, and the caller retries with the new stock.
+    private boolean change(byte type, StockCounter counter, int expected, int value) {
+        record(type, counter, value - expected);
+        if (counter.compareAndSet(expected, value)) {
+            return true;
+        }
+        record(type, counter, expected - value);
+        return false;
+    }
+
+    private void record(byte type, StockCounter counter, int value) {
+        if (journal != null) {
+            journal.append(type, counter.productId(), value);
+        }
+    }
+
+    // A rolled back change is added back unless a restock replaced the stock since the change
+    // started: the imported stock does not include it. A restock racing the change itself
+    // may have come first, in which case a unit the order did take is not given back; the
+    // product then shows less stock than it has, never more.
+    private void changed(StockCounter counter, int delta, int restocks) {
+        enqueue(counter);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK && counter.restocks() == restocks) {
+                        journaled(() -> {
+                            record(StockJournal.RESTORE, counter, delta);
+                            counter.add(delta);
+                            return null;
+                        });
+                        enqueue(counter);
+                    }
+                }
+            });
+        }
+    }
+
+    private void enqueue(StockCounter counter) {
+        if (counter.markDirty()) {
+            dirtyCounters.add(counter);
+        }
+    }
+}
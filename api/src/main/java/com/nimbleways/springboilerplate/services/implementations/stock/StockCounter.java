@@ -0,0 +1,99 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class StockCounter {
+
+    private final long productId;
+    private final AtomicInteger available;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    // The stock the engine last read from or wrote to the products row, and the one before:
+    // when the process dies during a flush, the row holds one or the other
+    private volatile int flushed;
+    private volatile int previousFlushed;
+    // Bumped before a restock sets the stock, so that a rolled back change can tell whether
+    // the stock it would restore was replaced in the meantime
+    private final AtomicInteger restocks = new AtomicInteger();
+
+    StockCounter(long productId, int available) {
+        this.productId = productId;
+        this.available = new AtomicInteger(available);
+        this.flushed = available;
+        this.previousFlushed = available;
+    }
+
+    long productId() {
+        return productId;
+    }
+
+    int available() {
+        return available.get();
+    }
+
+    boolean tryDecrement() {
+        int current;
+        do {
+            current = available.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    boolean compareAndSet(int expected, int value) {
+        return available.compareAndSet(expected, value);
+    }
+
+    void add(int delta) {
+        available.addAndGet(delta);
+    }
+
+    int restocks() {
+        return restocks.get();
+    }
+
+    void restocking() {
+        restocks.incrementAndGet();
+    }
+
+    int flushed() {
+        return flushed;
+    }
+
+    int previousFlushed() {
+        return previousFlushed;
+    }
+
+    void flushing(int value) {
+        previousFlushed = flushed;
+        flushed = value;
+    }
+
+    void restoreFlushed(int flushed, int previousFlushed) {
+        this.flushed = flushed;
+        this.previousFlushed = previousFlushed;
+    }
+
+    // False when the row was changed by someone else than the engine
+    boolean wrote(int tableAvailable) {
+        return tableAvailable == flushed || tableAvailable == previousFlushed;
+    }
+
+    // Takes over the stock of the products row; only while no other thread uses the counter
+    void reset(int tableAvailable) {
+        available.set(tableAvailable);
+        restoreFlushed(tableAvailable, tableAvailable);
+    }
+
+    // Returns true only for the caller that flips the counter from clean to dirty,
+    // so each counter is queued for the flusher at most once per flush.
+    boolean markDirty() {
+        return dirty.compareAndSet(false, true);
+    }
+
+    void markClean() {
+        dirty.set(false);
+    }
+}
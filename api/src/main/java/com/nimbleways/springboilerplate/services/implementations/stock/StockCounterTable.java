@@ -0,0 +1,123 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+// Open-addressing table keyed by primitive product ids. Lookups are lock-free: a slot's
+// counter is written before its key is published with release semantics, and a resize
+// publishes a fully built copy that shares the same counter instances, so a decrement
+// done through a stale copy is never lost. Inserts are serialized on the table monitor.
+final class StockCounterTable {
+
+    private static final long EMPTY = 0L;
+    private static final float MAX_LOAD = 0.5f;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(StockCounter[].class);
+
+    private volatile Slots slots;
+    private int size;
+
+    StockCounterTable(int expectedSize) {
+        this.slots = new Slots(capacityFor(expectedSize));
+    }
+
+    StockCounter get(long productId) {
+        return find(slots, productId);
+    }
+
+    StockCounter computeIfAbsent(long productId, IntSupplier initialAvailable) {
+        StockCounter counter = find(slots, productId);
+        return counter != null ? counter : insert(productId, initialAvailable);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    void forEach(Consumer<StockCounter> action) {
+        Slots current = slots;
+        for (int i = 0; i < current.counters.length; i++) {
+            StockCounter counter = (StockCounter) COUNTERS.getAcquire(current.counters, i);
+            if (counter != null) {
+                action.accept(counter);
+            }
+        }
+    }
+
+    private synchronized StockCounter insert(long productId, IntSupplier initialAvailable) {
+        if (productId == EMPTY) {
+            throw new IllegalArgumentException("Product id must not be " + EMPTY);
+        }
+        StockCounter existing = find(slots, productId);
+        if (existing != null) {
+            return existing;
+        }
+        if (size + 1 > slots.keys.length * MAX_LOAD) {
+            slots = grow(slots);
+        }
+        StockCounter counter = new StockCounter(productId, initialAvailable.getAsInt());
+        place(slots, counter);
+        size++;
+        return counter;
+    }
+
+    private static StockCounter find(Slots slots, long productId) {
+        int index = indexFor(productId, slots.mask);
+        while (true) {
+            long key = (long) KEYS.getAcquire(slots.keys, index);
+            if (key == productId) {
+                return slots.counters[index];
+            }
+            if (key == EMPTY) {
+                return null;
+            }
+            index = (index + 1) & slots.mask;
+        }
+    }
+
+    private static void place(Slots slots, StockCounter counter) {
+        int index = indexFor(counter.productId(), slots.mask);
+        while (slots.keys[index] != EMPTY) {
+            index = (index + 1) & slots.mask;
+        }
+        COUNTERS.setRelease(slots.counters, index, counter);
+        KEYS.setRelease(slots.keys, index, counter.productId());
+    }
+
+    private static Slots grow(Slots old) {
+        Slots grown = new Slots(old.keys.length * 2);
+        for (StockCounter counter : old.counters) {
+            if (counter != null) {
+                place(grown, counter);
+            }
+        }
+        return grown;
+    }
+
+    private static int indexFor(long productId, int mask) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static final class Slots {
+        private final long[] keys;
+        private final StockCounter[] counters;
+        private final int mask;
+
+        private Slots(int capacity) {
+            this.keys = new long[capacity];
+            this.counters = new StockCounter[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Append-only journal of the stock changes of the in-memory engine, kept in a memory-mapped
+// file: recording a change is a write to memory and the operating system writes the pages
+// out, so the request path pays no extra I/O. Records are deltas (type, product id, value),
+// so concurrent changes of a product may be recorded in any order. A change is recorded
+// before it is made, so the journal never misses a change a flush may already have written.
+// Flush records carry the absolute stock being written to the products row, which lets
+// recovery tell the rows the engine wrote from rows changed while it was down.
+//
+// Changes are recorded under the read lock. A snapshot takes the write lock just long
+// enough to copy the counters and switch to the journal of the next generation, then
+// writes the copy to disk; the files of older generations are deleted once the snapshot is
+// on disk. Recovery loads the latest snapshot and replays every journal of the same or a
+// later generation, which stays correct if the process died while writing a snapshot.
+@Slf4j
+final class StockJournal {
+
+    // A counter created from a loaded product, the value is its stock
+    static final byte SEED = 1;
+    static final byte DECREMENT = 2;
+    // The value is minus the stock the counter held
+    static final byte CLEAR = 3;
+    // Stock given back by a rolled back transaction
+    static final byte RESTORE = 4;
+    // Stock set by the product import, the value is the new stock minus the previous one
+    static final byte RESTOCK = 5;
+    // The value is the stock being written to the products row
+    static final byte FLUSH = 6;
+
+    private static final int RECORD_SIZE = 13;
+    private static final int SNAPSHOT_MAGIC = 0x53544b32;
+    // Snapshots without the flushed stock cannot be checked against the table
+    private static final int SNAPSHOT_MAGIC_V1 = 0x53544b31;
+    // Changes already inside the read lock when the journal fills up still get a slot
+    private static final int HEADROOM_RECORDS = 65_536;
+
+    private final Path directory;
+    private final StockCounterTable counters;
+    private final int capacity;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger position = new AtomicInteger();
+    private final Object snapshotMonitor = new Object();
+    private long generation;
+    private MappedByteBuffer journal;
+
+    StockJournal(Path directory, StockCounterTable counters, int maxRecords) {
+        if ((long) (maxRecords + HEADROOM_RECORDS) * RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Stock journal too large: " + maxRecords + " records");
+        }
+        this.directory = directory;
+        this.counters = counters;
+        this.capacity = maxRecords * RECORD_SIZE;
+    }
+
+    /**
+     * Runs a change while no snapshot is in progress, taking a snapshot first when the
+     * journal is full. The change records itself with append.
+     */
+    <T> T record(Supplier<T> change) {
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (position.get() < capacity) {
+                    return change.get();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            snapshot(true);
+        }
+    }
+
+    void append(byte type, long productId, int value) {
+        int offset = position.getAndAdd(RECORD_SIZE);
+        if (offset + RECORD_SIZE > journal.capacity()) {
+            throw new IllegalStateException("Stock journal overflow");
+        }
+        journal.putLong(offset + 1, productId);
+        journal.putInt(offset + 9, value);
+        // Written last: a record torn by a crash reads as empty and is skipped
+        journal.put(offset, type);
+    }
+
+    /**
+     * Loads the latest snapshot and replays the journals written since. Returns false when
+     * there is no usable snapshot. Every recovered counter is passed to the callback.
+     */
+    boolean recover(Consumer<StockCounter> recovered) {
+        List<Long> snapshots = generations("snapshot-", ".dat");
+        if (snapshots.isEmpty()) {
+            return false;
+        }
+        long latest = snapshots.get(snapshots.size() - 1);
+        try {
+            if (!loadSnapshot(snapshotFile(latest))) {
+                log.warn("Stock snapshot {} has an older format, rebuilding from the table", latest);
+                generation = latest;
+                return false;
+            }
+            generation = latest;
+            for (long journalGeneration : generations("journal-", ".log")) {
+                if (journalGeneration >= latest) {
+                    replay(journalFile(journalGeneration));
+                    generation = journalGeneration;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot recover stock from " + directory, e);
+        }
+        counters.forEach(recovered);
+        return true;
+    }
+
+    void snapshot() {
+        snapshot(false);
+    }
+
+    private void snapshot(boolean onlyIfFull) {
+        synchronized (snapshotMonitor) {
+            long[] productIds;
+            int[] available;
+            int[] flushed;
+            int[] previousFlushed;
+            long next;
+            lock.writeLock().lock();
+            try {
+                if (onlyIfFull && journal != null && position.get() < capacity) {
+                    return;
+                }
+                int size = counters.size();
+                productIds = new long[size];
+                available = new int[size];
+                flushed = new int[size];
+                previousFlushed = new int[size];
+                int[] index = {0};
+                counters.forEach(counter -> {
+                    productIds[index[0]] = counter.productId();
+                    available[index[0]] = counter.available();
+                    flushed[index[0]] = counter.flushed();
+                    previousFlushed[index[0]++] = counter.previousFlushed();
+                });
+                next = generation + 1;
+                journal = map(journalFile(next));
+                position.set(0);
+                generation = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            writeSnapshot(next, productIds, available, flushed, previousFlushed);
+            deleteBefore(next);
+        }
+    }
+
+    private MappedByteBuffer map(Path file) {
+        try {
+            Files.createDirectories(directory);
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                long size = (long) capacity + (long) HEADROOM_RECORDS * RECORD_SIZE;
+                raf.setLength(size);
+                return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create stock journal " + file, e);
+        }
+    }
+
+    private void writeSnapshot(long snapshotGeneration, long[] productIds, int[] available,
+                               int[] flushed, int[] previousFlushed) {
+        Path target = snapshotFile(snapshotGeneration);
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(productIds.length);
+            for (int i = 0; i < productIds.length; i++) {
+                out.writeLong(productIds[i]);
+                out.writeInt(available[i]);
+                out.writeInt(flushed[i]);
+                out.writeInt(previousFlushed[i]);
+            }
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write stock snapshot " + target, e);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write stock snapshot " + target, e);
+        }
+    }
+
+    private boolean loadSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic == SNAPSHOT_MAGIC_V1) {
+                return false;
+            }
+            if (magic != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a stock snapshot: " + file);
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                long productId = in.readLong();
+                int available = in.readInt();
+                int flushed = in.readInt();
+                int previousFlushed = in.readInt();
+                counters.computeIfAbsent(productId, () -> available).restoreFlushed(flushed, previousFlushed);
+            }
+            return true;
+        }
+    }
+
+    private void replay(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + RECORD_SIZE <= records.capacity(); offset += RECORD_SIZE) {
+                byte type = records.get(offset);
+                if (type == 0) {
+                    continue;
+                }
+                long productId = records.getLong(offset + 1);
+                int value = records.getInt(offset + 9);
+                if (type == SEED) {
+                    counters.computeIfAbsent(productId, () -> value);
+                } else if (type == FLUSH) {
+                    counters.computeIfAbsent(productId, () -> value).flushing(value);
+                } else {
+                    counters.computeIfAbsent(productId, () -> 0).add(value);
+                }
+            }
+        }
+    }
+
+    private void deleteBefore(long keptGeneration) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> {
+                long fileGeneration = generationOf(file.getFileName().toString());
+                return fileGeneration >= 0 && fileGeneration < keptGeneration;
+            }).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Cannot delete old stock journal file {}", file, e);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Cannot clean up stock journal directory {}", directory, e);
+        }
+    }
+
+    private List<Long> generations(String prefix, String suffix) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(StockJournal::generationOf)
+                    .filter(fileGeneration -> fileGeneration >= 0)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list stock journal directory " + directory, e);
+        }
+    }
+
+    // journal-000042.log and snapshot-000042.dat are of generation 42, other files -1
+    private static long generationOf(String name) {
+        int dash = name.indexOf('-');
+        int dot = name.indexOf('.');
+        if (dash < 0 || dot < dash || !(name.endsWith(".log") || name.endsWith(".dat"))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(dash + 1, dot));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path journalFile(long fileGeneration) {
+        return directory.resolve(String.format("journal-%06d.log", fileGeneration));
+    }
+
+    private Path snapshotFile(long fileGeneration) {
+        return directory.resolve(String.format("snapshot-%06d.dat", fileGeneration));
+    }
+}
@@ -0,0 +1,53 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stock")
+public class StockProperties {
+
+    // database or in-memory, read by the conditions of the stock ledgers
+    private String mode = "database";
+    private InMemory inMemory = new InMemory();
+    private Sharding sharding = new Sharding();
+
+    @Getter
+    @Setter
+    public static class InMemory {
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private int flushBatchSize = 500;
+        private int initialCapacity = 1024;
+        private Journal journal = new Journal();
+    }
+
+    @Getter
+    @Setter
+    public static class Journal {
+        private boolean enabled = false;
+        private String directory = "data/stock-journal";
+        // Records per journal file; a full journal triggers a snapshot
+        private int maxRecords = 4_000_000;
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Sharding {
+        private boolean enabled = false;
+        private int slots = 8;
+        // Products sharded at startup; products sharded earlier stay sharded
+        private List<Long> productIds = new ArrayList<>();
+        private Duration rebalanceInterval = Duration.ofSeconds(5);
+        // How long a node trusts its last check of whether any product is sharded
+        private Duration checkInterval = Duration.ofSeconds(5);
+        // Below this many units per slot, the stock is merged into a single slot
+        private int mergeBelowPerSlot = 4;
+    }
+}
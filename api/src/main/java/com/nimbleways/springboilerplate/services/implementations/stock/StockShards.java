@@ -0,0 +1,236 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.ProductStockShard;
+import com.nimbleways.springboilerplate.repositories.ProductStockShardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Stock of hot products split across slots of product_stock_shards, so concurrent orders
+// for the same product lock different rows. A decrement tries a random slot, then the
+// slots that still have stock. While a product is sharded its slots own the stock: the
+// rebalancer evens the slots out, merges them into one when stock runs low, and copies
+// their sum to products.available for readers of the products table.
+//
+// Whether a product is sharded is read from product_stock_shards in the caller's
+// transaction, never from node-local state: a product sharded by one node is decremented
+// through its slots on every node, including nodes with sharding disabled. That lookup is
+// skipped while the table is empty, which each node checks at most once per check
+// interval. A node that has not seen the first sharded product yet decrements it through
+// products.available, whose conditional updates skip products that have slots: the product
+// looks sold out to that node until its next check, it is never oversold.
+@Slf4j
+@Component
+public class StockShards {
+
+    private static final String LOCK_PRODUCT = "select available from products where id = ? for update";
+    private static final String UPDATE_AVAILABLE = "update products set available = ? where id = ?";
+    private static final String SHARDED_AMONG = "select distinct product_id from product_stock_shards where product_id in (";
+    private static final String ANY_SHARDED = "select exists (select 1 from product_stock_shards)";
+    private static final int MAX_IN_LIST = 1000;
+
+    private final ProductStockShardRepository shardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockProperties.Sharding properties;
+    private volatile ShardsCheck shardsCheck = new ShardsCheck(false, Instant.MIN);
+
+    private record ShardsCheck(boolean anySharded, Instant validUntil) {
+    }
+
+    public StockShards(ProductStockShardRepository shardRepository,
+                       JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       StockProperties stockProperties) {
+        this.shardRepository = shardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = stockProperties.getSharding();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        properties.getProductIds().forEach(this::shard);
+        log.info("Stock sharding enabled for {} products", shardRepository.findShardedProductIds().size());
+    }
+
+    /**
+     * Whether any product has slots, as read from product_stock_shards at most once per
+     * check interval, or at once after this node sharded or unsharded a product.
+     */
+    public boolean anySharded() {
+        ShardsCheck check = shardsCheck;
+        Instant now = Instant.now();
+        if (now.isBefore(check.validUntil())) {
+            return check.anySharded();
+        }
+        boolean anySharded = Boolean.TRUE.equals(jdbcTemplate.queryForObject(ANY_SHARDED, Boolean.class));
+        shardsCheck = new ShardsCheck(anySharded, now.plus(properties.getCheckInterval()));
+        return anySharded;
+    }
+
+    // Makes the next lookup read product_stock_shards again
+    void expireShardsCheck() {
+        shardsCheck = new ShardsCheck(false, Instant.MIN);
+    }
+
+    public boolean isSharded(Long productId) {
+        return !shardedAmong(List.of(productId)).isEmpty();
+    }
+
+    /**
+     * Returns the given products that have slots, with one query per thousand products.
+     */
+    public Set<Long> shardedAmong(Collection<Long> productIds) {
+        Set<Long> sharded = new HashSet<>();
+        if (productIds.isEmpty() || !anySharded()) {
+            return sharded;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Long> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+            String sql = SHARDED_AMONG + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            sharded.addAll(jdbcTemplate.queryForList(sql, Long.class, chunk.toArray()));
+        }
+        return sharded;
+    }
+
+    /**
+     * Moves the stock of a product into its slots. Does nothing if the product is already
+     * sharded or does not exist.
+     */
+    public void shard(Long productId) {
+        if (!properties.isEnabled()) {
+            throw new IllegalStateException("Stock sharding is disabled");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Integer> available = jdbcTemplate.queryForList(LOCK_PRODUCT, Integer.class, productId);
+            if (available.isEmpty()) {
+                log.warn("Cannot shard unknown product {}", productId);
+                return;
+            }
+            if (!shardRepository.lockSlots(productId).isEmpty()) {
+                return;
+            }
+            int[] split = split(available.get(0) == null ? 0 : available.get(0), properties.getSlots());
+            List<ProductStockShard> slots = new ArrayList<>(split.length);
+            for (int slot = 0; slot < split.length; slot++) {
+                slots.add(new ProductStockShard(productId, slot, split[slot]));
+            }
+            shardRepository.saveAll(slots);
+        });
+        shardsCheck = new ShardsCheck(true, Instant.now().plus(properties.getCheckInterval()));
+    }
+
+    /**
+     * Folds the slots of a product back into products.available and deletes them.
+     */
+    public void unshard(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ProductStockShard> slots = shardRepository.lockSlots(productId);
+            jdbcTemplate.update(UPDATE_AVAILABLE, total(slots), productId);
+            shardRepository.deleteAllInBatch(slots);
+        });
+        expireShardsCheck();
+    }
+
+    // Runs in the caller's transaction, like the products row decrements
+    public boolean tryDecrement(Long productId) {
+        int first = ThreadLocalRandom.current().nextInt(properties.getSlots());
+        if (shardRepository.decrementSlot(productId, first) > 0) {
+            return true;
+        }
+        for (int slot : shardRepository.findSlotsWithStock(productId)) {
+            if (slot != first && shardRepository.decrementSlot(productId, slot) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear(Collection<Long> productIds) {
+        Set<Long> shardedIds = shardedAmong(productIds);
+        if (!shardedIds.isEmpty()) {
+            shardRepository.clearSlots(shardedIds);
+        }
+    }
+
+    /**
+     * Splits new stock of sharded products across their slots, in the caller's transaction.
+     * Products that are not sharded are skipped.
+     */
+    public void restock(Map<Long, Integer> availableById) {
+        for (Long productId : shardedAmong(availableById.keySet())) {
+            List<ProductStockShard> slots = shardRepository.lockSlots(productId);
+            int[] split = split(availableById.get(productId), slots.size());
+            for (ProductStockShard slot : slots) {
+                slot.setAvailable(split[slot.getSlot()]);
+            }
+        }
+    }
+
+    public long available(Long productId) {
+        return shardRepository.sumAvailable(productId);
+    }
+
+    // Nodes with sharding enabled rebalance every sharded product; two nodes rebalancing the
+    // same product take turns on the slot locks
+    @Scheduled(fixedDelayString = "${stock.sharding.rebalance-interval:PT5S}")
+    public void rebalance() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (Long productId : shardRepository.findShardedProductIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(productId));
+            } catch (RuntimeException e) {
+                log.warn("Rebalance of stock shards of product {} failed", productId, e);
+            }
+        }
+    }
+
+    private void rebalance(Long productId) {
+        List<ProductStockShard> slots = shardRepository.lockSlots(productId);
+        if (slots.isEmpty()) {
+            return;
+        }
+        int total = total(slots);
+        int activeSlots = total < slots.size() * properties.getMergeBelowPerSlot() ? 1 : slots.size();
+        int[] split = split(total, activeSlots);
+        for (ProductStockShard slot : slots) {
+            int target = slot.getSlot() < split.length ? split[slot.getSlot()] : 0;
+            if (slot.getAvailable() != target) {
+                slot.setAvailable(target);
+            }
+        }
+        jdbcTemplate.update(UPDATE_AVAILABLE, total, productId);
+    }
+
+    private static int total(List<ProductStockShard> slots) {
+        return slots.stream().mapToInt(ProductStockShard::getAvailable).sum();
+    }
+
+    private static int[] split(int total, int slots) {
+        int[] split = new int[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            split[slot] = total / slots + (slot < total % slots ? 1 : 0);
+        }
+        return split;
+    }
+}
@@ -0,0 +1,104 @@
+package com.nimbleways.springboilerplate.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "orders.processing.async.enabled=true",
+        "orders.processing.async.workers=2",
+        "orders.processing.async.poll-interval=PT0.05S"
+})
+@AutoConfigureMockMvc
+class AsyncOrderControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private OrderRepository orderRepository;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @MockBean
+        private NotificationService notificationService;
+
+        /** Cas : la commande est acceptée tout de suite puis traitée par un worker */
+        @Test
+        void processOrderShouldBeAcceptedAndProcessedByWorker() throws Exception {
+                Product normal = productRepository.save(new Product(null, 10, 10, ProductType.NORMAL, "Async Cable", null, null, null));
+                Order order = orderRepository.save(new Order(null, Set.of(normal)));
+
+                String body = mockMvc.perform(post("/orders/{orderId}/processOrder", order.getId()))
+                        .andExpect(status().isAccepted())
+                        .andExpect(jsonPath("$.orderId").value(order.getId()))
+                        .andReturn().getResponse().getContentAsString();
+                long jobId = objectMapper.readTree(body).get("jobId").asLong();
+
+                JsonNode job = awaitFinished(jobId);
+                assertEquals("SUCCEEDED", job.get("status").asText());
+                assertEquals(order.getId(), job.get("result").get("id").asLong());
+                assertEquals(9, productRepository.findById(normal.getId()).orElseThrow().getAvailable());
+        }
+
+        /** Cas : une commande inconnue fait échouer le job avec la raison */
+        @Test
+        void unknownOrderShouldFailJob() throws Exception {
+                String body = mockMvc.perform(post("/orders/{orderId}/processOrder", -1L))
+                        .andExpect(status().isAccepted())
+                        .andExpect(header().string("Location", containsString("/orders/jobs/")))
+                        .andReturn().getResponse().getContentAsString();
+                long jobId = objectMapper.readTree(body).get("jobId").asLong();
+
+                JsonNode job = awaitFinished(jobId);
+                assertEquals("FAILED", job.get("status").asText());
+                assertEquals("Order not found", job.get("error").asText());
+        }
+
+        /** Cas : un job inconnu renvoie 404 */
+        @Test
+        void unknownJobShouldBeNotFound() throws Exception {
+                mockMvc.perform(get("/orders/jobs/{jobId}", -1L))
+                        .andExpect(status().isNotFound());
+        }
+
+        private JsonNode awaitFinished(long jobId) throws Exception {
+                long deadline = System.nanoTime() + 10_000_000_000L;
+                while (true) {
+                        String body = mockMvc.perform(get("/orders/jobs/{jobId}", jobId))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                        JsonNode job = objectMapper.readTree(body);
+                        String status = job.get("status").asText();
+                        if (status.equals("SUCCEEDED") || status.equals("FAILED") || System.nanoTime() > deadline) {
+                                return job;
+                        }
+                        Thread.sleep(20);
+                }
+        }
+}
@@ -2,12 +2,13 @@ package com.nimbleways.springboilerplate.controllers;
 
 import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
 import com.nimbleways.springboilerplate.repositories.ProductRepository;
 import com.nimbleways.springboilerplate.services.implementations.NotificationService;
-import com.nimbleways.springboilerplate.services.implementations.ProductService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -16,10 +17,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.junit.Assert.assertEquals;
 
 
-import static org.mockito.ArgumentMatchers.argThat;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.time.LocalDate;
@@ -33,6 +36,7 @@ import java.util.Set;
 // Which allows a better performance and needs to do less mocks
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 public class OrderControllerTest {
 
         @Autowired
@@ -41,9 +45,6 @@ public class OrderControllerTest {
         @MockBean
         private NotificationService notificationService;
 
-        @MockBean
-        private ProductService productService; // mock pour vérifier les appels
-
         @Autowired
         private OrderRepository orderRepository;
 
@@ -67,10 +68,10 @@ public class OrderControllerTest {
                 assertEquals(order.getId(), resultOrder.getId());
         }
 
-        /** Cas : produit expiré déclenche handleExpiredProduct */
+        /** Cas : produit expiré déclenche une notification d'expiration */
         @Test
-        public void expirableProductExpiredShouldCallHandleExpiredProduct() throws Exception {
-                Product expired = new Product(null, 10, 0, "EXPIRABLE", "Old Milk",
+        public void expirableProductExpiredShouldSendExpirationNotification() throws Exception {
+                Product expired = new Product(null, 10, 0, ProductType.EXPIRABLE, "Old Milk",
                         LocalDate.now().minusDays(1), null, null);
                 productRepository.save(expired);
 
@@ -81,14 +82,14 @@ public class OrderControllerTest {
                                 .contentType("application/json"))
                         .andExpect(status().isOk());
 
-                verify(productService).handleExpiredProduct(argThat(p -> expired.getName().equals("Old Milk")));
+                verify(notificationService).sendExpirationNotification("Old Milk", expired.getExpiryDate());
 
         }
 
         /** Cas : produit expirable valide diminue la quantité */
         @Test
         public void expirableProductValidShouldDecreaseAvailable() throws Exception {
-                Product valid = new Product(null, 5, 5, "EXPIRABLE", "Fresh Butter",
+                Product valid = new Product(null, 5, 5, ProductType.EXPIRABLE, "Fresh Butter",
                         LocalDate.now().plusDays(10), null, null);
                 productRepository.save(valid);
 
@@ -107,10 +108,10 @@ public class OrderControllerTest {
 
         }
 
-        /** Cas : produit saisonnier hors saison déclenche handleSeasonalProduct */
+        /** Cas : produit saisonnier hors saison déclenche une notification de rupture */
         @Test
-        public void seasonalProductOutOfSeasonShouldCallHandleSeasonalProduct() throws Exception {
-                Product seasonal = new Product(null, 10, 0, "SEASONAL", "Winter Fruit",
+        public void seasonalProductOutOfSeasonShouldSendOutOfStockNotification() throws Exception {
+                Product seasonal = new Product(null, 10, 0, ProductType.SEASONAL, "Winter Fruit",
                         null, LocalDate.now().plusDays(10), LocalDate.now().plusDays(20));
                 productRepository.save(seasonal);
 
@@ -121,16 +122,13 @@ public class OrderControllerTest {
                                 .contentType("application/json"))
                         .andExpect(status().isOk());
 
-                verify(productService).handleSeasonalProduct(argThat(p ->
-                        p.getName().equals("Winter Fruit") &&
-                                p.getType().equals("SEASONAL")
-                ));
+                verify(notificationService).sendOutOfStockNotification("Winter Fruit");
         }
 
         /** Cas : produit saisonnier en saison diminue la quantité */
         @Test
         public void seasonalProductInSeasonShouldDecreaseAvailable() throws Exception {
-                Product seasonal = new Product(null, 8, 8, "SEASONAL", "Summer Fruit",
+                Product seasonal = new Product(null, 8, 8, ProductType.SEASONAL, "Summer Fruit",
                         null, LocalDate.now().minusDays(1), LocalDate.now().plusDays(10));
                 productRepository.save(seasonal);
 
@@ -145,10 +143,10 @@ public class OrderControllerTest {
                 assertEquals(7, updated.getAvailable().intValue());
         }
 
-        /** Cas : produit normal sans stock mais avec leadTime déclenche notifyDelay */
+        /** Cas : produit normal sans stock mais avec leadTime déclenche une notification de délai */
         @Test
-        public void normalProductNoStockWithLeadTimeShouldCallNotifyDelay() throws Exception {
-                Product normal = new Product(null, 5, 0, "NORMAL", "USB Cable", null, null, null);
+        public void normalProductNoStockWithLeadTimeShouldSendDelayNotification() throws Exception {
+                Product normal = new Product(null, 5, 0, ProductType.NORMAL, "USB Cable", null, null, null);
                 productRepository.save(normal);
 
                 Order order = createOrder(Set.of(normal));
@@ -158,13 +156,13 @@ public class OrderControllerTest {
                                 .contentType("application/json"))
                         .andExpect(status().isOk());
 
-                verify(productService).notifyDelay(eq(5), argThat(p -> p.getName().equals("USB Cable")));
+                verify(notificationService).sendDelayNotification(5, "USB Cable");
         }
 
         /** Cas : produit normal avec stock > 0 diminue la quantité */
         @Test
         public void normalProductWithStockShouldDecreaseAvailable() throws Exception {
-                Product normal = new Product(null, 10, 10, "NORMAL", "USB Cable", null, null, null);
+                Product normal = new Product(null, 10, 10, ProductType.NORMAL, "USB Cable", null, null, null);
                 productRepository.save(normal);
 
                 Order order = createOrder(Set.of(normal));
@@ -178,6 +176,69 @@ public class OrderControllerTest {
                 assertEquals(9, updated.getAvailable().intValue());
         }
 
+        /** Cas : une commande rejouée n'est traitée qu'une seule fois */
+        @Test
+        public void processOrderTwiceShouldDecreaseAvailableOnce() throws Exception {
+                Product normal = new Product(null, 10, 10, ProductType.NORMAL, "USB Hub", null, null, null);
+                productRepository.save(normal);
+
+                Order order = orderRepository.save(createOrder(Set.of(normal)));
+
+                for (int i = 0; i < 2; i++) {
+                        mockMvc.perform(post("/orders/{orderId}/processOrder", order.getId())
+                                        .contentType("application/json"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(order.getId()));
+                }
+                mockMvc.perform(post("/orders/processOrders")
+                                .contentType("application/json")
+                                .content("[" + order.getId() + "]"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[0].id").value(order.getId()));
+
+                Product updated = productRepository.findById(normal.getId()).get();
+                assertEquals(9, updated.getAvailable().intValue());
+        }
+
+        /** Cas : les métriques de traitement sont exposées au format Prometheus */
+        @Test
+        public void prometheusEndpointShouldExposeOrderProcessingMetrics() throws Exception {
+                Product normal = new Product(null, 10, 10, ProductType.NORMAL, "Mouse Pad", null, null, null);
+                productRepository.save(normal);
+                Order order = orderRepository.save(createOrder(Set.of(normal)));
+
+                mockMvc.perform(post("/orders/{orderId}/processOrder", order.getId())
+                                .contentType("application/json"))
+                        .andExpect(status().isOk());
+
+                mockMvc.perform(get("/actuator/prometheus"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().string(containsString("orders_process_seconds_count{outcome=\"success\"")))
+                        .andExpect(content().string(containsString("products_process_seconds_count{type=\"normal\"")))
+                        .andExpect(content().string(containsString("products_branch_total{branch=\"decrement\"")))
+                        .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")));
+        }
+
+        /** Cas : un produit commun à plusieurs commandes est décrémenté une fois par commande */
+        @Test
+        public void processOrdersShouldDecrementSharedProductOncePerOrder() throws Exception {
+                Product shared = new Product(null, 10, 10, ProductType.NORMAL, "HDMI Cable", null, null, null);
+                productRepository.save(shared);
+
+                Order first = orderRepository.save(createOrder(Set.of(shared)));
+                Order second = orderRepository.save(createOrder(Set.of(shared)));
+
+                mockMvc.perform(post("/orders/processOrders")
+                                .contentType("application/json")
+                                .content("[" + first.getId() + "," + second.getId() + "]"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[0].id").value(first.getId()))
+                        .andExpect(jsonPath("$[1].id").value(second.getId()));
+
+                Product updated = productRepository.findById(shared.getId()).get();
+                assertEquals(8, updated.getAvailable().intValue());
+        }
+
         // Helper methods
         private static Order createOrder(Set<Product> products) {
                 Order order = new Order();
@@ -187,12 +248,12 @@ public class OrderControllerTest {
 
         private static List<Product> createProducts() {
                 List<Product> products = new ArrayList<>();
-                products.add(new Product(null, 15, 30, "NORMAL", "USB Cable", null, null, null));
-                products.add(new Product(null, 10, 0, "NORMAL", "USB Dongle", null, null, null));
-                products.add(new Product(null, 15, 30, "EXPIRABLE", "Butter", LocalDate.now().plusDays(26), null, null));
-                products.add(new Product(null, 90, 6, "EXPIRABLE", "Milk", LocalDate.now().minusDays(2), null, null));
-                products.add(new Product(null, 15, 30, "SEASONAL", "Watermelon", null, LocalDate.now().minusDays(2), LocalDate.now().plusDays(58)));
-                products.add(new Product(null, 15, 30, "SEASONAL", "Grapes", null, LocalDate.now().plusDays(180), LocalDate.now().plusDays(240)));
+                products.add(new Product(null, 15, 30, ProductType.NORMAL, "USB Cable", null, null, null));
+                products.add(new Product(null, 10, 0, ProductType.NORMAL, "USB Dongle", null, null, null));
+                products.add(new Product(null, 15, 30, ProductType.EXPIRABLE, "Butter", LocalDate.now().plusDays(26), null, null));
+                products.add(new Product(null, 90, 6, ProductType.EXPIRABLE, "Milk", LocalDate.now().minusDays(2), null, null));
+                products.add(new Product(null, 15, 30, ProductType.SEASONAL, "Watermelon", null, LocalDate.now().minusDays(2), LocalDate.now().plusDays(58)));
+                products.add(new Product(null, 15, 30, ProductType.SEASONAL, "Grapes", null, LocalDate.now().plusDays(180), LocalDate.now().plusDays(240)));
                 return products;
         }
 }
@@ -0,0 +1,168 @@
+package com.nimbleways.springboilerplate.controllers;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        private long firstId;
+        private List<Product> products;
+
+        @BeforeEach
+        void setUp() {
+                LocalDate today = LocalDate.now();
+                products = productRepository.saveAll(List.of(
+                        new Product(null, 5, 3, ProductType.NORMAL, "Catalogue Cable", null, null, null),
+                        new Product(null, 5, 0, ProductType.NORMAL, "Catalogue Dongle", null, null, null),
+                        new Product(null, 5, 4, ProductType.EXPIRABLE, "Catalogue Milk", today.minusDays(1), null, null),
+                        new Product(null, 5, 4, ProductType.EXPIRABLE, "Catalogue Butter", today.plusDays(5), null, null),
+                        new Product(null, 5, 6, ProductType.SEASONAL, "Catalogue Melon", null, today.minusDays(5), today.plusDays(5)),
+                        new Product(null, 5, 6, ProductType.SEASONAL, "Catalogue Pumpkin", null, today.plusDays(30), today.plusDays(60))));
+                firstId = products.get(0).getId();
+        }
+
+        /** Cas : la pagination par curseur parcourt toutes les pages sans doublon */
+        @Test
+        void productsShouldBePagedByKeyset() throws Exception {
+                perform(get("/products").param("after", String.valueOf(firstId - 1)).param("limit", "4"))
+                        .andExpect(jsonPath("$.items[*].name").value(contains(
+                                "Catalogue Cable", "Catalogue Dongle", "Catalogue Milk", "Catalogue Butter")))
+                        .andExpect(jsonPath("$.nextCursor").value(products.get(3).getId()));
+
+                perform(get("/products").param("after", String.valueOf(products.get(3).getId())).param("limit", "4"))
+                        .andExpect(jsonPath("$.items[*].name").value(contains("Catalogue Melon", "Catalogue Pumpkin")))
+                        .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+        }
+
+        /** Cas : seuls les produits vendables du type demandé sont retournés */
+        @Test
+        void filtersShouldKeepOnlySellableProducts() throws Exception {
+                String today = LocalDate.now().toString();
+                perform(get("/products").param("after", String.valueOf(firstId - 1))
+                        .param("inStock", "true").param("notExpiredOn", today).param("inSeasonOn", today))
+                        .andExpect(jsonPath("$.items[*].name").value(contains(
+                                "Catalogue Cable", "Catalogue Butter", "Catalogue Melon")));
+
+                perform(get("/products").param("after", String.valueOf(firstId - 1)).param("type", "seasonal"))
+                        .andExpect(jsonPath("$.items[*].name").value(contains("Catalogue Melon", "Catalogue Pumpkin")))
+                        .andExpect(jsonPath("$.items[0].type").value("SEASONAL"));
+        }
+
+        /** Cas : un type inconnu est refusé */
+        @Test
+        void unknownTypeShouldBeRejected() throws Exception {
+                mockMvc.perform(get("/products").param("type", "BROKEN"))
+                        .andExpect(status().isBadRequest());
+        }
+
+        /** Cas : l'import NDJSON insère, met à jour et rejette ligne par ligne */
+        @Test
+        void ndjsonImportShouldUpsertAndReportRejectedRows() throws Exception {
+                Long updatedId = products.get(0).getId();
+                String body = "{\"name\":\"Imported Lamp\",\"type\":\"normal\",\"available\":7,\"leadTime\":3}\n"
+                        + "{\"id\":" + updatedId + ",\"name\":\"Catalogue Cable\",\"type\":\"NORMAL\",\"available\":42,\"leadTime\":1}\n"
+                        + "\n"
+                        + "{\"name\":\"Broken\",\"type\":\"seasonal\",\"available\":1,\"leadTime\":1}\n"
+                        + "{\"id\":-1,\"name\":\"Ghost\",\"type\":\"normal\",\"available\":1,\"leadTime\":1}\n"
+                        + "not json\n";
+
+                mockMvc.perform(post("/products/import").contentType("application/x-ndjson").content(body))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.accepted").value(2))
+                        .andExpect(jsonPath("$.rejected").value(3))
+                        .andExpect(jsonPath("$.rejections[*].line").value(contains(4, 6, 5)));
+
+                assertEquals(42, productRepository.findById(updatedId).orElseThrow().getAvailable());
+                assertEquals(7, productRepository.findFirstByName("Imported Lamp").orElseThrow().getAvailable());
+        }
+
+        /** Cas : l'import CSV lit les colonnes d'après l'en-tête */
+        @Test
+        void csvImportShouldInsertProducts() throws Exception {
+                String body = "name,type,available,leadTime,seasonStartDate,seasonEndDate\n"
+                        + "\"Imported Cherries, red\",SEASONAL,12,4,2030-05-01,2030-07-01\n";
+
+                mockMvc.perform(post("/products/import").contentType("text/csv").content(body))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.accepted").value(1))
+                        .andExpect(jsonPath("$.rejected").value(0));
+
+                Product imported = productRepository.findFirstByName("Imported Cherries, red").orElseThrow();
+                assertEquals(ProductType.SEASONAL, imported.getType());
+                assertEquals(LocalDate.of(2030, 7, 1), imported.getSeasonEndDate());
+        }
+
+        /** Cas : l'export CSV contient l'en-tête et les produits */
+        @Test
+        void csvExportShouldListProducts() throws Exception {
+                String csv = perform(get("/products/export").param("format", "csv"))
+                        .andExpect(content().contentType("text/csv"))
+                        .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.csv\""))
+                        .andReturn().getResponse().getContentAsString();
+
+                assertTrue(csv.startsWith("id,name,type,available,leadTime,expiryDate,seasonStartDate,seasonEndDate\n"));
+                Product melon = products.get(4);
+                assertTrue(csv.contains(melon.getId() + ",Catalogue Melon,SEASONAL,6,5,," + melon.getSeasonStartDate()
+                        + "," + melon.getSeasonEndDate() + "\n"));
+        }
+
+        /** Cas : l'export NDJSON peut être compressé */
+        @Test
+        void gzipNdjsonExportShouldListProducts() throws Exception {
+                byte[] gzipped = perform(get("/products/export").param("gzip", "true"))
+                        .andExpect(content().contentType("application/gzip"))
+                        .andReturn().getResponse().getContentAsByteArray();
+
+                String ndjson;
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+                        ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                assertTrue(ndjson.contains("{\"id\":" + firstId + ",\"name\":\"Catalogue Cable\",\"type\":\"NORMAL\","
+                        + "\"available\":3,\"leadTime\":5,\"expiryDate\":null,\"seasonStartDate\":null,\"seasonEndDate\":null}\n"));
+        }
+
+        private ResultActions perform(MockHttpServletRequestBuilder builder) throws Exception {
+                MvcResult started = mockMvc.perform(builder)
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+                return mockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk());
+        }
+}
@@ -0,0 +1,32 @@
+package com.nimbleways.springboilerplate.entities;
+
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@UnitTest
+class ProductTypeConverterTest {
+
+    private final ProductTypeConverter converter = new ProductTypeConverter();
+
+    @Test
+    void shouldStoreEnumName() {
+        assertEquals("SEASONAL", converter.convertToDatabaseColumn(ProductType.SEASONAL));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void shouldReadStoredValuesIgnoringCase() {
+        assertEquals(ProductType.EXPIRABLE, converter.convertToEntityAttribute("expirable"));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void shouldRejectUnknownStoredValue() {
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute("UNKNOWN"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.nimbleways.springboilerplate.repositories;
+
+import com.nimbleways.springboilerplate.dto.product.ProductSummary;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentDecrementsShouldNeverOversell() throws Exception {
+        Product product = productRepository.save(new Product(null, 0, 10, ProductType.NORMAL, "Flash Sale TV", null, null, null));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            results.add(pool.submit(() -> transactionTemplate.execute(
+                    status -> productRepository.decrementAvailable(product.getId()))));
+        }
+        int succeeded = 0;
+        for (Future<Integer> result : results) {
+            succeeded += result.get();
+        }
+        pool.shutdown();
+
+        assertEquals(10, succeeded);
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+    }
+
+    @Test
+    void decrementShouldRespectExpiryAndSeasonConditions() {
+        LocalDate today = LocalDate.now();
+        Product expired = productRepository.save(new Product(null, 0, 5, ProductType.EXPIRABLE, "Old Milk", today.minusDays(1), null, null));
+        Product fresh = productRepository.save(new Product(null, 0, 5, ProductType.EXPIRABLE, "Fresh Milk", today.plusDays(3), null, null));
+        Product offSeason = productRepository.save(new Product(null, 0, 5, ProductType.SEASONAL, "Pumpkin", null, today.plusDays(3), today.plusDays(30)));
+        Product inSeason = productRepository.save(new Product(null, 0, 5, ProductType.SEASONAL, "Melon", null, today.minusDays(3), today.plusDays(30)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, productRepository.decrementAvailableIfNotExpired(expired.getId(), today));
+            assertEquals(1, productRepository.decrementAvailableIfNotExpired(fresh.getId(), today));
+            assertEquals(0, productRepository.decrementAvailableIfInSeason(offSeason.getId(), today));
+            assertEquals(1, productRepository.decrementAvailableIfInSeason(inSeason.getId(), today));
+        });
+    }
+
+    @Test
+    void catalogueShouldListOnlyProductsThatOrdersWouldDecrementOnSeasonBoundaries() {
+        LocalDate today = LocalDate.now();
+        Product startsToday = productRepository.save(new Product(null, 0, 5, ProductType.SEASONAL, "First Day Melon", null, today, today.plusDays(30)));
+        Product endsToday = productRepository.save(new Product(null, 0, 5, ProductType.SEASONAL, "Last Day Melon", null, today.minusDays(30), today));
+        Product inSeason = productRepository.save(new Product(null, 0, 5, ProductType.SEASONAL, "Midseason Melon", null, today.minusDays(1), today.plusDays(1)));
+
+        List<String> names = transactionTemplate.execute(status -> {
+            try (Stream<ProductSummary> catalogue = productRepository.streamCatalogue(startsToday.getId() - 1,
+                    ProductType.SEASONAL, false, null, today, PageRequest.ofSize(10))) {
+                return catalogue.map(ProductSummary::name).toList();
+            }
+        });
+
+        assertEquals(List.of("Midseason Melon"), names);
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, productRepository.decrementAvailableIfInSeason(startsToday.getId(), today));
+            assertEquals(0, productRepository.decrementAvailableIfInSeason(endsToday.getId(), today));
+            assertEquals(1, productRepository.decrementAvailableIfInSeason(inSeason.getId(), today));
+        });
+    }
+}
@@ -1,7 +1,9 @@
 package com.nimbleways.springboilerplate.services.implementations;
 
 import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.services.implementations.notification.INotificationDispatcher;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductProcessingMetrics;
 import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
 
 import org.junit.jupiter.api.Test;
@@ -18,18 +20,16 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 public class MyUnitTests {
 
     @Mock
-    private NotificationService notificationService;
+    private INotificationDispatcher notificationService;
     @Mock
-    private ProductRepository productRepository;
+    private ProductProcessingMetrics metrics;
     @InjectMocks 
     private ProductService productService;
 
     @Test
     public void test() {
         // GIVEN
-        Product product =new Product(null, 15, 0, "NORMAL", "RJ45 Cable", null, null, null);
-
-        Mockito.when(productRepository.save(product)).thenReturn(product);
+        Product product =new Product(null, 15, 0, ProductType.NORMAL, "RJ45 Cable", null, null, null);
 
         // WHEN
         productService.notifyDelay(product.getLeadTime(), product);
@@ -37,7 +37,6 @@ public class MyUnitTests {
         // THEN
         assertEquals(0, product.getAvailable());
         assertEquals(15, product.getLeadTime());
-        Mockito.verify(productRepository, Mockito.times(1)).save(product);
         Mockito.verify(notificationService, Mockito.times(1)).sendDelayNotification(product.getLeadTime(), product.getName());
     }
 }
\ No newline at end of file
@@ -0,0 +1,270 @@
+package com.nimbleways.springboilerplate.services.implementations;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockShards;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "stock.sharding.check-interval=PT1H")
+class OrderProcessingServiceQueryCountTest {
+
+    private static final int ORDER_LINES = 200;
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+
+    @Autowired
+    private StockShards stockShards;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void processOrderShouldLoadOrderAndAllItemsInOneQuery() {
+        List<Product> products = productRepository.saveAll(IntStream.range(0, ORDER_LINES)
+                .mapToObj(i -> new Product(null, 5, 10, ProductType.NORMAL, "Product " + i, null, null, null))
+                .toList());
+        Order order = orderRepository.save(new Order(null, new HashSet<>(products)));
+
+        record();
+        orderProcessingService.processOrder(order.getId());
+
+        // No product is sharded, so the ledger does not look for slots
+        List<Execution> selects = executions("select");
+        assertEquals(1, selects.size());
+        assertTrue(selects.get(0).sql().contains(" from orders "));
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(ORDER_LINES + 1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void processOrderShouldDecrementAtomicallyAndBatchOnlyChangedProducts() {
+        List<Product> inStock = IntStream.range(0, ORDER_LINES)
+                .mapToObj(i -> new Product(null, 5, 10, ProductType.NORMAL, "Product " + i, null, null, null))
+                .toList();
+        List<Product> notYetInSeason = IntStream.range(0, 20)
+                .mapToObj(i -> new Product(null, 5, 0, ProductType.SEASONAL, "Seasonal " + i, null,
+                        LocalDate.now().plusDays(10), LocalDate.now().plusDays(60)))
+                .toList();
+        List<Product> expired = IntStream.range(0, 20)
+                .mapToObj(i -> new Product(null, 5, 4, ProductType.EXPIRABLE, "Expired " + i,
+                        LocalDate.now().minusDays(1), null, null))
+                .toList();
+        Set<Product> items = new HashSet<>(productRepository.saveAll(inStock));
+        items.addAll(productRepository.saveAll(notYetInSeason));
+        items.addAll(productRepository.saveAll(expired));
+        Order order = orderRepository.save(new Order(null, items));
+
+        record();
+        orderProcessingService.processOrder(order.getId());
+
+        // Only the zeroed expired products go through dirty checking, in one batch
+        assertEquals(List.of(expired.size()), batchSizes(executions("update products set available=?")));
+        // Neither the decrements nor the clears looked for slots
+        assertEquals(1, executions("select").size());
+        inStock.forEach(p -> assertEquals(9, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+        expired.forEach(p -> assertEquals(0, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+    }
+
+    @Test
+    void processOrderShouldDecrementAllItemsOfATypeInOneBatch() {
+        List<Product> inStock = productRepository.saveAll(IntStream.range(0, ORDER_LINES)
+                .mapToObj(i -> new Product(null, 5, 10, ProductType.NORMAL, "Product " + i, null, null, null))
+                .toList());
+        List<Product> outOfStock = productRepository.saveAll(IntStream.range(0, 20)
+                .mapToObj(i -> new Product(null, 5, 0, ProductType.NORMAL, "Sold out " + i, null, null, null))
+                .toList());
+        List<Product> inSeason = productRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> new Product(null, 5, 10, ProductType.SEASONAL, "In season " + i, null,
+                        LocalDate.now().minusDays(10), LocalDate.now().plusDays(60)))
+                .toList());
+        Set<Product> items = new HashSet<>(inStock);
+        items.addAll(outOfStock);
+        items.addAll(inSeason);
+        Order order = orderRepository.save(new Order(null, items));
+
+        record();
+        orderProcessingService.processOrder(order.getId());
+
+        // One JDBC batch per type and no other update
+        List<Execution> updates = executions("update");
+        assertEquals(List.of(ORDER_LINES + outOfStock.size(), inSeason.size()), batchSizes(updates));
+        assertTrue(updates.stream().allMatch(update -> update.sql().startsWith("update products set available = available - 1")));
+        assertTrue(updates.get(1).sql().contains("season_start_date < ?"));
+        inStock.forEach(p -> assertEquals(9, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+        outOfStock.forEach(p -> assertEquals(0, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+        inSeason.forEach(p -> assertEquals(9, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+    }
+
+    @Test
+    void processOrderShouldNotRetryTheExpirableDecrementOfSoldOutItems() {
+        List<Product> fresh = productRepository.saveAll(IntStream.range(0, 50)
+                .mapToObj(i -> new Product(null, 5, 3, ProductType.EXPIRABLE, "Fresh " + i,
+                        LocalDate.now().plusDays(5), null, null))
+                .toList());
+        List<Product> soldOut = productRepository.saveAll(IntStream.range(0, 10)
+                .mapToObj(i -> new Product(null, 5, 0, ProductType.EXPIRABLE, "Sold out fresh " + i,
+                        LocalDate.now().plusDays(5), null, null))
+                .toList());
+        Set<Product> items = new HashSet<>(fresh);
+        items.addAll(soldOut);
+        Order order = orderRepository.save(new Order(null, items));
+
+        record();
+        orderProcessingService.processOrder(order.getId());
+
+        // One conditional batch and no second attempt for the items it did not decrement
+        List<Execution> updates = executions("update");
+        assertEquals(List.of(fresh.size() + soldOut.size()), batchSizes(updates));
+        assertTrue(updates.get(0).sql().contains("expiry_date > ?"));
+        fresh.forEach(p -> assertEquals(2, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+        soldOut.forEach(p -> assertEquals(0, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+    }
+
+    // The check for sharded products is made once per interval; it is made before recording
+    private void record() {
+        assertFalse(stockShards.anySharded());
+        statistics.clear();
+        statementRecorder.clear();
+    }
+
+    // Statements sent to the database since record(), one per round trip
+    private List<Execution> executions(String sqlPrefix) {
+        return statementRecorder.executions().stream()
+                .filter(execution -> execution.sql().trim().toLowerCase().startsWith(sqlPrefix))
+                .toList();
+    }
+
+    private static List<Integer> batchSizes(List<Execution> executions) {
+        return executions.stream().map(Execution::batchSize).toList();
+    }
+
+    @TestConfiguration
+    static class StatementRecording {
+
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSource(ObjectProvider<StatementRecorder> recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? recorder.getObject().wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    // Records the statements sent through the DataSource: one execution per round trip,
+    // with the number of parameter sets for a JDBC batch
+    record Execution(String sql, int batchSize) {
+    }
+
+    static class StatementRecorder {
+
+        private final Queue<Execution> executions = new ConcurrentLinkedQueue<>();
+
+        void clear() {
+            executions.clear();
+        }
+
+        List<Execution> executions() {
+            return List.copyOf(executions);
+        }
+
+        DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, args, result) ->
+                    result instanceof Connection connection ? wrap(connection) : result);
+        }
+
+        private Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) -> {
+                if (result instanceof PreparedStatement statement && method.getName().startsWith("prepare")) {
+                    return wrap(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement wrap(PreparedStatement statement, String sql) {
+            AtomicInteger batched = new AtomicInteger();
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                switch (method.getName()) {
+                    case "addBatch" -> batched.incrementAndGet();
+                    case "executeBatch", "executeLargeBatch" -> executions.add(new Execution(sql, batched.getAndSet(0)));
+                    case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate" -> executions.add(new Execution(sql, 0));
+                    default -> {
+                    }
+                }
+                return result;
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(Method method, Object[] args, Object result) throws Throwable;
+        }
+
+        private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                try {
+                    return afterCall.apply(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }));
+        }
+    }
+}
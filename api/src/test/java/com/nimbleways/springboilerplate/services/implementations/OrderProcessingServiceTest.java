@@ -5,15 +5,30 @@ import com.nimbleways.springboilerplate.entities.Order;
 import com.nimbleways.springboilerplate.entities.Product;
 import com.nimbleways.springboilerplate.enums.ProductType;
 import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProcessedOrderRepository;
+import com.nimbleways.springboilerplate.services.implementations.cluster.PartitionLeases;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderGroupCommitter;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingMetrics;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingProperties;
 import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.implementations.order.ParallelItemProcessor;
+import com.nimbleways.springboilerplate.services.implementations.order.PartitionedItemProcessor;
+import com.nimbleways.springboilerplate.services.implementations.order.ProcessedOrderRegistry;
 import com.nimbleways.springboilerplate.services.implementations.product.ExpirableProductRule;
 import com.nimbleways.springboilerplate.services.implementations.product.NormalProductStrategy;
 import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCache;
 import com.nimbleways.springboilerplate.services.implementations.product.SeasonalProductStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,28 +42,48 @@ class OrderProcessingServiceTest {
     private OrderRepository orderRepository;
     private ProductRuleFactory productRuleFactory;
     private OrderProcessingService orderProcessingService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Mock
+    private ObjectProvider<ParallelItemProcessor> parallelItemProcessor;
+
+    @Mock
+    private ObjectProvider<OrderGroupCommitter> groupCommitter;
+
+    @Mock
+    private ObjectProvider<PartitionedItemProcessor> partitionedItemProcessor;
+
+    @Mock
+    private ObjectProvider<PartitionLeases> partitionLeases;
 
     @BeforeEach
     void setUp() {
+        MockitoAnnotations.openMocks(this);
         orderRepository = mock(OrderRepository.class);
         productRuleFactory = mock(ProductRuleFactory.class);
-        orderProcessingService = new OrderProcessingService(orderRepository, productRuleFactory);
+        meterRegistry = new SimpleMeterRegistry();
+        ProcessedOrderRegistry processedOrders = new ProcessedOrderRegistry(
+                mock(ProcessedOrderRepository.class), new OrderProcessingProperties());
+        orderProcessingService = new OrderProcessingService(orderRepository, productRuleFactory,
+                parallelItemProcessor, processedOrders, mock(PlatformTransactionManager.class),
+                new OrderProcessingMetrics(meterRegistry), mock(ProductCache.class), groupCommitter,
+                partitionedItemProcessor, partitionLeases);
     }
 
     @Test
     void processOrder_shouldProcessEachProductAndReturnResponse() {
         // Arrange
         Product product1 = new Product();
-        product1.setType("NORMAL"); // matches enum
+        product1.setType(ProductType.NORMAL); // matches enum
 
         Product product2 = new Product();
-        product2.setType("SEASONAL"); // matches enum
+        product2.setType(ProductType.SEASONAL); // matches enum
 
         Order order = new Order();
         order.setId(1L);
         order.setItems(Set.of(product1, product2));
 
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(1L)).thenReturn(Optional.of(order));
 
         // Mock strategies
         NormalProductStrategy strategyNormal = mock(NormalProductStrategy.class);
@@ -65,14 +100,14 @@ class OrderProcessingServiceTest {
         assertEquals(1L, response.id());
 
         // Verify that each strategy was called with correct product
-        verify(strategyNormal, times(1)).process(product1);
-        verify(strategySeasonal, times(1)).process(product2);
+        verify(strategyNormal, times(1)).processAll(List.of(product1));
+        verify(strategySeasonal, times(1)).processAll(List.of(product2));
     }
 
     @Test
     void processOrder_whenOrderNotFound_shouldThrowException() {
         // Arrange
-        when(orderRepository.findById(99L)).thenReturn(Optional.empty());
+        when(orderRepository.findWithItemsById(99L)).thenReturn(Optional.empty());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -85,13 +120,13 @@ class OrderProcessingServiceTest {
     @Test
     void processOrder_shouldProcessExpirableProduct() {
         Product product = new Product();
-        product.setType("EXPIRABLE");
+        product.setType(ProductType.EXPIRABLE);
 
         Order order = new Order();
         order.setId(2L);
         order.setItems(Set.of(product));
 
-        when(orderRepository.findById(2L)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(2L)).thenReturn(Optional.of(order));
 
         ExpirableProductRule expirableStrategy = mock(ExpirableProductRule.class);
         when(productRuleFactory.getStrategy(ProductType.EXPIRABLE)).thenReturn(expirableStrategy);
@@ -99,7 +134,7 @@ class OrderProcessingServiceTest {
         ProcessOrderResponse response = orderProcessingService.processOrder(2L);
 
         assertEquals(2L, response.id());
-        verify(expirableStrategy, times(1)).process(product);
+        verify(expirableStrategy, times(1)).processAll(List.of(product));
     }
 
     @Test
@@ -108,7 +143,7 @@ class OrderProcessingServiceTest {
         order.setId(3L);
         order.setItems(Set.of()); // empty
 
-        when(orderRepository.findById(3L)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(3L)).thenReturn(Optional.of(order));
 
         ProcessOrderResponse response = orderProcessingService.processOrder(3L);
 
@@ -118,20 +153,66 @@ class OrderProcessingServiceTest {
         verifyNoInteractions(productRuleFactory);
     }
     @Test
-    void processOrder_withInvalidProductType_shouldThrowException() {
-        Product product = new Product();
-        product.setType("UNKNOWN"); // not in enum
+    void processOrder_withoutProductType_shouldThrowException() {
+        Product product = new Product(); // no type
 
         Order order = new Order();
         order.setId(4L);
         order.setItems(Set.of(product));
 
-        when(orderRepository.findById(4L)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsById(4L)).thenReturn(Optional.of(order));
+        when(productRuleFactory.getStrategy(null)).thenThrow(new IllegalArgumentException("No strategy for type null"));
 
         assertThrows(IllegalArgumentException.class, () -> {
             orderProcessingService.processOrder(4L);
         });
     }
 
+    @Test
+    void processOrder_shouldTimeEachCallByOutcome() {
+        Order order = new Order(9L, Set.of());
+        when(orderRepository.findWithItemsById(9L)).thenReturn(Optional.of(order));
+
+        orderProcessingService.processOrder(9L);
+        assertThrows(RuntimeException.class, () -> orderProcessingService.processOrder(10L));
+
+        assertEquals(1, meterRegistry.get("orders.process").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("orders.process").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void processOrders_shouldLoadOrdersInOneQueryAndProcessEachOrder() {
+        Product product1 = new Product();
+        product1.setType(ProductType.NORMAL);
+        Product product2 = new Product();
+        product2.setType(ProductType.NORMAL);
+
+        Order order1 = new Order(5L, Set.of(product1));
+        Order order2 = new Order(6L, Set.of(product1, product2));
+
+        when(orderRepository.findDistinctByIdIn(List.of(5L, 6L))).thenReturn(List.of(order2, order1));
+
+        NormalProductStrategy strategyNormal = mock(NormalProductStrategy.class);
+        when(productRuleFactory.getStrategy(ProductType.NORMAL)).thenReturn(strategyNormal);
+
+        List<ProcessOrderResponse> responses = orderProcessingService.processOrders(List.of(5L, 6L, 5L));
+
+        assertEquals(List.of(new ProcessOrderResponse(5L), new ProcessOrderResponse(6L)), responses);
+        verify(orderRepository, times(1)).findDistinctByIdIn(any());
+        verify(strategyNormal, times(1)).processAll(List.of(product1));
+        verify(strategyNormal, times(1)).processAll(argThat(products ->
+                products.size() == 2 && products.containsAll(List.of(product1, product2))));
+    }
+
+    @Test
+    void processOrders_whenAnOrderIsMissing_shouldThrowBeforeProcessing() {
+        Order order = new Order(7L, Set.of(new Product()));
+        when(orderRepository.findDistinctByIdIn(List.of(7L, 8L))).thenReturn(List.of(order));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> orderProcessingService.processOrders(List.of(7L, 8L)));
 
+        assertEquals("Orders not found: [8]", exception.getMessage());
+        verifyNoInteractions(productRuleFactory);
+    }
 }
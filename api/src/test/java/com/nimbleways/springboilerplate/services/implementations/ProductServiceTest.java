@@ -2,13 +2,19 @@ package com.nimbleways.springboilerplate.services.implementations;
 
 
 import com.nimbleways.springboilerplate.entities.Product;
-import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.notification.INotificationDispatcher;
+import com.nimbleways.springboilerplate.services.implementations.notification.NotificationType;
+import com.nimbleways.springboilerplate.services.implementations.notification.ProductNotification;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductProcessingMetrics;
+import com.nimbleways.springboilerplate.services.implementations.stock.IStockLedger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 
@@ -19,10 +25,13 @@ class ProductServiceTest {
     private ProductService productService;
 
     @Mock
-    private ProductRepository pr;
+    private IStockLedger stock;
 
     @Mock
-    private NotificationService ns;
+    private INotificationDispatcher ns;
+
+    @Mock
+    private ProductProcessingMetrics metrics;
 
     @BeforeEach
     void setUp() {
@@ -33,7 +42,7 @@ class ProductServiceTest {
     // notifyDelay tests
     // ============================
     @Test
-    void notifyDelayShouldSaveProductAndSendNotification() {
+    void notifyDelayShouldUpdateLeadTimeAndSendNotification() {
         Product p = new Product();
         p.setName("USB Cable");
 
@@ -42,9 +51,6 @@ class ProductServiceTest {
         // Vérifie que le leadTime est mis à jour
         assert(p.getLeadTime() == 5);
 
-        // Vérifie que ProductRepository.save est appelé
-        verify(pr).save(p);
-
         // Vérifie que NotificationService.sendDelayNotification est appelé
         verify(ns).sendDelayNotification(5, "USB Cable");
     }
@@ -55,6 +61,7 @@ class ProductServiceTest {
     @Test
     void handleSeasonalProductAfterSeasonEndShouldSendOutOfStock() {
         Product p = new Product();
+        p.setId(32L);
         p.setName("Seasonal Product");
         p.setLeadTime(5);
         p.setSeasonEndDate(LocalDate.now().minusDays(1));
@@ -63,28 +70,33 @@ class ProductServiceTest {
         productService.handleSeasonalProduct(p);
 
         // Produit mis à 0 et notification envoyée
-        assert(p.getAvailable() == 0);
-        verify(ns).sendOutOfStockNotification("Seasonal Product");
-        verify(pr).save(p);
+        verify(stock).clearAll(List.of(p));
+        verify(ns).sendAll(argThat(only(NotificationType.OUT_OF_STOCK, "Seasonal Product")));
     }
 
     @Test
     void handleSeasonalProductBeforeSeasonStartShouldSendOutOfStock() {
         Product p = new Product();
+        p.setId(33L);
         p.setName("Seasonal Product");
         p.setLeadTime(5);
+        p.setAvailable(3);
         p.setSeasonStartDate(LocalDate.now().plusDays(2));
         p.setSeasonEndDate(LocalDate.now().plusDays(10));
 
         productService.handleSeasonalProduct(p);
 
-        verify(ns).sendOutOfStockNotification("Seasonal Product");
-        verify(pr).save(p);
+        // Le produit n'est pas modifié, il ne sera donc pas réécrit
+        assert(p.getAvailable() == 3);
+        assert(p.getLeadTime() == 5);
+        verify(stock).clearAll(List.of());
+        verify(ns).sendAll(argThat(only(NotificationType.OUT_OF_STOCK, "Seasonal Product")));
     }
 
     @Test
     void handleSeasonalProductDuringSeasonShouldNotifyDelay() {
         Product p = new Product();
+        p.setId(34L);
         p.setName("Seasonal Product");
         p.setLeadTime(5);
         p.setSeasonStartDate(LocalDate.now().minusDays(2));
@@ -92,8 +104,8 @@ class ProductServiceTest {
 
         productService.handleSeasonalProduct(p);
 
-        verify(ns).sendDelayNotification(5, "Seasonal Product");
-        verify(pr).save(p);
+        verify(ns).sendAll(argThat(only(NotificationType.DELAY, "Seasonal Product")));
+        assert(p.getLeadTime() == 5);
     }
 
     // ============================
@@ -102,28 +114,68 @@ class ProductServiceTest {
     @Test
     void handleExpiredProductAvailableAndNotExpiredShouldDecrementAvailable() {
         Product p = new Product();
+        p.setId(42L);
         p.setName("Expiring Product");
         p.setAvailable(3);
         p.setExpiryDate(LocalDate.now().plusDays(2));
+        when(stock.tryDecrementIfNotExpired(p, LocalDate.now())).thenReturn(true);
 
         productService.handleExpiredProduct(p);
 
-        assert(p.getAvailable() == 2);
-        verify(pr).save(p);
-        verify(ns, never()).sendExpirationNotification(any(), any());
+        // Le décrément passe par le stock, l'entité n'est pas modifiée
+        assert(p.getAvailable() == 3);
+        verify(stock).tryDecrementIfNotExpired(p, LocalDate.now());
+        verify(stock).clearAll(List.of());
+        verify(ns).sendAll(List.of());
     }
 
     @Test
     void handleExpiredProductExpiredOrUnavailableShouldSendExpiration() {
         Product p = new Product();
+        p.setId(35L);
         p.setName("Expired Product");
         p.setAvailable(0);
         p.setExpiryDate(LocalDate.now().minusDays(1));
 
         productService.handleExpiredProduct(p);
 
-        assert(p.getAvailable() == 0);
-        verify(ns).sendExpirationNotification("Expired Product", p.getExpiryDate());
-        verify(pr).save(p);
+        verify(stock).clearAll(List.of(p));
+        verify(stock, never()).tryDecrementIfNotExpired(any(), any());
+        verify(ns).sendAll(argThat(only(NotificationType.EXPIRATION, "Expired Product")));
+    }
+
+    @Test
+    void handleExpiredProductNotExpiredButOutOfStockShouldSendExpiration() {
+        Product p = new Product();
+        p.setId(43L);
+        p.setName("Sold Out Product");
+        p.setAvailable(0);
+        p.setExpiryDate(LocalDate.now().plusDays(2));
+        when(stock.tryDecrementIfNotExpired(p, LocalDate.now())).thenReturn(false);
+
+        productService.handleExpiredProduct(p);
+
+        verify(stock).clearAll(List.of(p));
+        verify(stock, times(1)).tryDecrementIfNotExpired(p, LocalDate.now());
+        verify(ns).sendAll(argThat(only(NotificationType.EXPIRATION, "Sold Out Product")));
+    }
+
+    @Test
+    void handleExpiredProductsShouldClearAndNotifyOnlyTheProductsNotDecremented() {
+        Product decremented = new Product(45L, 5, 2, null, "Fresh Product", LocalDate.now().plusDays(2), null, null);
+        Product soldOut = new Product(46L, 5, 0, null, "Sold Out Product", LocalDate.now().plusDays(2), null, null);
+
+        productService.handleExpiredProducts(List.of(decremented, soldOut), Set.of(45L));
+
+        verify(stock, never()).tryDecrementIfNotExpired(any(), any());
+        verify(stock).clearAll(List.of(soldOut));
+        verify(ns).sendAll(argThat((List<ProductNotification> notifications) -> notifications.size() == 1
+                && notifications.get(0).productName().equals("Sold Out Product")));
+    }
+
+    private static ArgumentMatcher<List<ProductNotification>> only(NotificationType type, String productName) {
+        return notifications -> notifications.size() == 1
+                && notifications.get(0).type() == type
+                && notifications.get(0).productName().equals(productName);
     }
 }
@@ -0,0 +1,181 @@
+package com.nimbleways.springboilerplate.services.implementations.cluster;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.OrderJob;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.ClusterNodeRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.PartitionLeaseRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobQueue;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderJobStatus;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCacheProperties;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "cluster.enabled=true",
+        "cluster.partitions=4",
+        "cluster.heartbeat-interval=PT1H",
+        "orders.processing.async.enabled=true",
+        "orders.processing.async.workers=1",
+        "orders.processing.async.poll-interval=PT0.05S"
+})
+class ClusteredOrderJobTest {
+
+    @Autowired
+    private OrderJobQueue orderJobQueue;
+
+    @Autowired
+    private PartitionLeases partitionLeases;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private PartitionLeaseRepository leaseRepository;
+
+    @Autowired
+    private ClusterNodeRepository nodeRepository;
+
+    @Autowired
+    private StockProperties stockProperties;
+
+    @Autowired
+    private ProductCacheProperties cacheProperties;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // A second node sharing the database, without workers; it takes half of the partitions
+    private PartitionLeases otherNode;
+
+    @AfterEach
+    void tearDown() {
+        if (otherNode != null) {
+            otherNode.stop();
+            partitionLeases.heartbeat();
+        }
+    }
+
+    @Test
+    void jobShouldBeRoutedToItsPartitionAndRunByItsOwner() throws InterruptedException {
+        List<Product> products = productRepository.saveAll(List.of(
+                new Product(null, 5, 10, ProductType.NORMAL, "Routed A", null, null, null),
+                new Product(null, 5, 10, ProductType.NORMAL, "Routed B", null, null, null)));
+        Order order = orderRepository.save(new Order(null, Set.copyOf(products)));
+        int partition = partitionLeases.partitionOf(products.get(0).getId());
+
+        OrderJob job = orderJobQueue.enqueue(order.getId());
+
+        assertEquals(partition, job.getPartition());
+        assertEquals(OrderJobStatus.SUCCEEDED, awaitFinished(job.getId()).getStatus());
+        products.forEach(p -> assertEquals(9, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+    }
+
+    @Test
+    void ordersOfTwoLeaseHoldersShouldBothDecrementTheirSharedProduct() throws InterruptedException {
+        startOtherNode();
+        Product ownedHere = productOwnedBy(partitionLeases);
+        Product ownedElsewhere = productOwnedBy(otherNode);
+        // Highest id: the orders are routed by their other product
+        Product shared = productRepository.save(new Product(null, 5, 100, ProductType.NORMAL, "Shared", null, null, null));
+        List<Long> jobIds = new ArrayList<>();
+        List<Long> elsewhere = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Long here = orderRepository.save(new Order(null, Set.of(ownedHere, shared))).getId();
+            jobIds.add(orderJobQueue.enqueue(here).getId());
+            elsewhere.add(orderRepository.save(new Order(null, Set.of(ownedElsewhere, shared))).getId());
+        }
+        assertTrue(otherNode.owned().contains(partitionLeases.partitionOfOrder(elsewhere.get(0))));
+
+        // This node's workers run its jobs while the other holder processes its orders
+        CompletableFuture<Void> otherHolder = CompletableFuture.runAsync(
+                () -> elsewhere.forEach(orderProcessingService::processOrder));
+        for (Long jobId : jobIds) {
+            assertEquals(OrderJobStatus.SUCCEEDED, awaitFinished(jobId).getStatus());
+        }
+        otherHolder.join();
+
+        assertEquals(80, available(shared));
+        assertEquals(0, available(ownedHere));
+        assertEquals(0, available(ownedElsewhere));
+    }
+
+    @Test
+    void batchWithAnOrderRoutedToAnotherNodeShouldBeRefused() {
+        startOtherNode();
+        Product ownedHere = productOwnedBy(partitionLeases);
+        Product ownedElsewhere = productOwnedBy(otherNode);
+        Long here = orderRepository.save(new Order(null, Set.of(ownedHere))).getId();
+        Long elsewhere = orderRepository.save(new Order(null, Set.of(ownedElsewhere))).getId();
+
+        PartitionNotOwnedException refused = assertThrows(PartitionNotOwnedException.class,
+                () -> orderProcessingService.processOrders(List.of(here, elsewhere)));
+
+        assertTrue(refused.getMessage().contains(elsewhere.toString()));
+        assertEquals(10, available(ownedHere));
+        orderProcessingService.processOrders(List.of(here));
+        assertEquals(9, available(ownedHere));
+    }
+
+    private void startOtherNode() {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setNodeId("other");
+        properties.setPartitions(4);
+        otherNode = new PartitionLeases(leaseRepository, nodeRepository, orderRepository, properties,
+                stockProperties, cacheProperties, transactionManager);
+        otherNode.start();
+        // This node gives back the partitions above its share, the other one takes them
+        partitionLeases.heartbeat();
+        otherNode.heartbeat();
+        assertEquals(2, partitionLeases.owned().size());
+        assertEquals(2, otherNode.owned().size());
+    }
+
+    private Product productOwnedBy(PartitionLeases node) {
+        while (true) {
+            Product product = productRepository.save(new Product(null, 5, 10, ProductType.NORMAL, "Partitioned", null, null, null));
+            if (node.owned().contains(node.partitionOf(product.getId()))) {
+                return product;
+            }
+        }
+    }
+
+    private int available(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getAvailable();
+    }
+
+    private OrderJob awaitFinished(Long jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            OrderJob job = orderJobQueue.find(jobId).orElseThrow();
+            if (job.getStatus() == OrderJobStatus.SUCCEEDED || job.getStatus() == OrderJobStatus.FAILED
+                    || System.nanoTime() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
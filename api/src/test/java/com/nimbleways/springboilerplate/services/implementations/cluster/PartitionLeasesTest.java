@@ -0,0 +1,127 @@
+package com.nimbleways.springboilerplate.services.implementations.cluster;
+
+import com.nimbleways.springboilerplate.repositories.ClusterNodeRepository;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.PartitionLeaseRepository;
+import com.nimbleways.springboilerplate.services.implementations.product.cache.ProductCacheProperties;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two nodes sharing the test database, heartbeating by hand
+@SpringBootTest
+class PartitionLeasesTest {
+
+    private static final Set<Integer> ALL = IntStream.range(0, 8).boxed().collect(Collectors.toSet());
+
+    @Autowired
+    private PartitionLeaseRepository leaseRepository;
+
+    @Autowired
+    private ClusterNodeRepository nodeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        leaseRepository.deleteAllInBatch();
+        nodeRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void partitionsShouldBeSharedBetweenLiveNodes() {
+        PartitionLeases first = node("first", Duration.ofMinutes(1));
+        first.start();
+        assertEquals(ALL, first.owned());
+
+        PartitionLeases second = node("second", Duration.ofMinutes(1));
+        second.start();
+        assertTrue(second.owned().isEmpty());
+
+        // The first node gives back what exceeds its share, the second one takes it
+        first.heartbeat();
+        second.heartbeat();
+
+        assertEquals(4, first.owned().size());
+        assertEquals(4, second.owned().size());
+        Set<Integer> both = new HashSet<>(first.owned());
+        both.addAll(second.owned());
+        assertEquals(ALL, both);
+    }
+
+    @Test
+    void leasesOfADeadNodeShouldBeTakenOverOnceExpired() throws InterruptedException {
+        PartitionLeases dying = node("dying", Duration.ofMillis(300));
+        PartitionLeases survivor = node("survivor", Duration.ofMillis(300));
+        dying.start();
+        survivor.start();
+        dying.heartbeat();
+        survivor.heartbeat();
+        assertEquals(4, survivor.owned().size());
+
+        // The dying node stops heartbeating
+        Thread.sleep(400);
+        survivor.heartbeat();
+
+        assertTrue(dying.owned().isEmpty());
+        assertEquals(ALL, survivor.owned());
+    }
+
+    @Test
+    void stoppedNodeShouldReleaseItsLeasesAtOnce() {
+        PartitionLeases leaving = node("leaving", Duration.ofMinutes(1));
+        PartitionLeases staying = node("staying", Duration.ofMinutes(1));
+        leaving.start();
+        staying.start();
+
+        leaving.stop();
+        staying.heartbeat();
+
+        assertTrue(leaving.owned().isEmpty());
+        assertEquals(ALL, staying.owned());
+    }
+
+    @Test
+    void nodeShouldRefuseToStartWithPerNodeStock() {
+        StockProperties inMemory = new StockProperties();
+        inMemory.setMode("in-memory");
+        ProductCacheProperties cached = new ProductCacheProperties();
+        cached.setEnabled(true);
+
+        assertThrows(IllegalStateException.class, () -> node("a", inMemory, new ProductCacheProperties()));
+        assertThrows(IllegalStateException.class, () -> node("a", new StockProperties(), cached));
+    }
+
+    private PartitionLeases node(String nodeId, Duration leaseDuration) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setNodeId(nodeId);
+        properties.setPartitions(ALL.size());
+        properties.setLeaseDuration(leaseDuration);
+        return new PartitionLeases(leaseRepository, nodeRepository, orderRepository, properties,
+                new StockProperties(), new ProductCacheProperties(), transactionManager);
+    }
+
+    private PartitionLeases node(String nodeId, StockProperties stockProperties, ProductCacheProperties cacheProperties) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setNodeId(nodeId);
+        return new PartitionLeases(leaseRepository, nodeRepository, orderRepository, properties,
+                stockProperties, cacheProperties, transactionManager);
+    }
+}
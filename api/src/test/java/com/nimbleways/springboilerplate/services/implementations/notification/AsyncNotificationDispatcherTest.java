@@ -0,0 +1,112 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.entities.SpilledNotification;
+import com.nimbleways.springboilerplate.repositories.SpilledNotificationRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class AsyncNotificationDispatcherTest {
+
+    private NotificationService notificationService;
+    private SpilledNotificationRepository spillRepository;
+    private PlatformTransactionManager transactionManager;
+    private TransactionTemplate transactionTemplate;
+    private NotificationDispatchProperties properties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = mock(NotificationService.class);
+        spillRepository = mock(SpilledNotificationRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        properties = new NotificationDispatchProperties();
+        properties.setCoalesceWindow(Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void duplicatesWithinWindowShouldBeSentOnce() throws Exception {
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(notificationService, spillRepository, transactionTemplate, properties, meterRegistry);
+        dispatcher.start();
+
+        dispatcher.sendDelayNotification(3, "USB Cable");
+        dispatcher.sendDelayNotification(5, "USB Cable");
+        dispatcher.sendOutOfStockNotification("USB Cable");
+        dispatcher.sendExpirationNotification("Milk", LocalDate.of(2026, 1, 1));
+
+        verify(notificationService, timeout(1000)).sendDelayNotification(5, "USB Cable");
+        verify(notificationService, timeout(1000)).sendOutOfStockNotification("USB Cable");
+        verify(notificationService, timeout(1000)).sendExpirationNotification("Milk", LocalDate.of(2026, 1, 1));
+        dispatcher.stop();
+
+        verify(notificationService, never()).sendDelayNotification(3, "USB Cable");
+        assertEquals(1.0, meterRegistry.get("notifications.dispatch.coalesced").counter().count());
+    }
+
+    @Test
+    void dropOldestShouldKeepNewestWhenFull() {
+        properties.setCapacity(2);
+        properties.setOverflow(OverflowPolicy.DROP_OLDEST);
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(notificationService, spillRepository, transactionTemplate, properties, meterRegistry);
+
+        dispatcher.sendOutOfStockNotification("A");
+        dispatcher.sendOutOfStockNotification("B");
+        dispatcher.sendOutOfStockNotification("C");
+
+        assertEquals(2, dispatcher.queueDepth());
+        assertEquals(2.0, meterRegistry.get("notifications.dispatch.queue.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("notifications.dispatch.dropped").counter().count());
+    }
+
+    @Test
+    void spillToDbShouldPersistOverflow() {
+        properties.setCapacity(1);
+        properties.setOverflow(OverflowPolicy.SPILL_TO_DB);
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(notificationService, spillRepository, transactionTemplate, properties, meterRegistry);
+
+        dispatcher.sendOutOfStockNotification("A");
+        dispatcher.sendDelayNotification(7, "B");
+
+        ArgumentCaptor<SpilledNotification> spilled = ArgumentCaptor.forClass(SpilledNotification.class);
+        verify(spillRepository).save(spilled.capture());
+        assertEquals(NotificationType.DELAY, spilled.getValue().getType());
+        assertEquals("B", spilled.getValue().getProductName());
+        assertEquals(7, spilled.getValue().getLeadTime());
+        assertEquals(1, dispatcher.queueDepth());
+    }
+
+    @Test
+    void spilledRowsShouldBeClaimedBeforeBeingQueued() throws Exception {
+        properties.setOverflow(OverflowPolicy.SPILL_TO_DB);
+        SpilledNotification row = new SpilledNotification(1L, NotificationType.OUT_OF_STOCK, "C", null, null);
+        when(spillRepository.lockNextBatch(any())).thenReturn(List.of(row));
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(notificationService, spillRepository, transactionTemplate, properties, meterRegistry);
+        dispatcher.start();
+
+        verify(notificationService, timeout(1000)).sendOutOfStockNotification("C");
+        dispatcher.stop();
+
+        // Locked and deleted in one transaction, so no other instance queues the row too
+        InOrder claim = inOrder(transactionManager, spillRepository);
+        claim.verify(transactionManager).getTransaction(any());
+        claim.verify(spillRepository).lockNextBatch(any());
+        claim.verify(spillRepository).deleteAllInBatch(List.of(row));
+        claim.verify(transactionManager).commit(any());
+        verify(spillRepository, times(1)).lockNextBatch(any());
+    }
+}
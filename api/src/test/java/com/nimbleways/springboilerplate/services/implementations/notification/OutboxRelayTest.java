@@ -0,0 +1,124 @@
+package com.nimbleways.springboilerplate.services.implementations.notification;
+
+import com.nimbleways.springboilerplate.repositories.OutboxNotificationRepository;
+import com.nimbleways.springboilerplate.entities.OutboxNotification;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+        "notifications.dispatch.mode=outbox",
+        "notifications.dispatch.outbox.poll-interval=PT1H",
+        "notifications.dispatch.outbox.max-attempts=2"
+})
+class OutboxRelayTest {
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private INotificationDispatcher dispatcher;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxNotificationRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void committedNotificationsShouldBeRelayedAndRemoved() {
+        transactionTemplate.executeWithoutResult(status -> {
+            dispatcher.sendDelayNotification(4, "USB Cable");
+            dispatcher.sendExpirationNotification("Milk", LocalDate.of(2026, 3, 1));
+        });
+        verifyNoInteractions(notificationService);
+
+        outboxRelay.relayPending();
+
+        verify(notificationService).sendDelayNotification(4, "USB Cable");
+        verify(notificationService).sendExpirationNotification("Milk", LocalDate.of(2026, 3, 1));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void notificationsOfAChunkShouldBeRelayedLikeSingleOnes() {
+        transactionTemplate.executeWithoutResult(status -> dispatcher.sendAll(List.of(
+                ProductNotification.delay(2, "HDMI Cable"),
+                ProductNotification.outOfStock("Melon"),
+                ProductNotification.expiration("Yogurt", LocalDate.of(2026, 4, 1)))));
+        assertEquals(3, outboxRepository.count());
+
+        outboxRelay.relayPending();
+
+        verify(notificationService).sendDelayNotification(2, "HDMI Cable");
+        verify(notificationService).sendOutOfStockNotification("Melon");
+        verify(notificationService).sendExpirationNotification("Yogurt", LocalDate.of(2026, 4, 1));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void rolledBackNotificationsShouldNeverBeSent() {
+        transactionTemplate.executeWithoutResult(status -> {
+            dispatcher.sendOutOfStockNotification("Watermelon");
+            status.setRollbackOnly();
+        });
+
+        outboxRelay.relayPending();
+
+        assertEquals(0, outboxRepository.count());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void failedDeliveryShouldStayInOutbox() {
+        doThrow(new IllegalStateException("notifier down")).when(notificationService).sendOutOfStockNotification("Grapes");
+        transactionTemplate.executeWithoutResult(status -> dispatcher.sendOutOfStockNotification("Grapes"));
+
+        outboxRelay.relayPending();
+
+        assertEquals(1, outboxRepository.count());
+        assertEquals(1, outboxRepository.findAll().get(0).getAttempts());
+        assertNull(outboxRepository.findAll().get(0).getFailedAt());
+    }
+
+    @Test
+    void deliveryFailingUpToTheAttemptLimitShouldBeMarkedFailed() {
+        doThrow(new IllegalStateException("notifier down")).when(notificationService).sendOutOfStockNotification("Kiwi");
+        transactionTemplate.executeWithoutResult(status -> dispatcher.sendOutOfStockNotification("Kiwi"));
+        double failedBefore = meterRegistry.counter("notifications.outbox.failed").count();
+
+        for (int i = 0; i < 3; i++) {
+            outboxRelay.relayPending();
+        }
+
+        verify(notificationService, times(2)).sendOutOfStockNotification("Kiwi");
+        OutboxNotification row = outboxRepository.findAll().get(0);
+        assertEquals(2, row.getAttempts());
+        assertNotNull(row.getFailedAt());
+        assertEquals(failedBefore + 1, meterRegistry.counter("notifications.outbox.failed").count());
+    }
+}
@@ -0,0 +1,193 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.ProcessedOrder;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProcessedOrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "orders.processing.group-commit.enabled=true",
+        "orders.processing.group-commit.window=PT0.1S",
+        "orders.processing.group-commit.max-batch-size=16"
+})
+class OrderGroupCommitterTest {
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProcessedOrderRepository processedOrderRepository;
+
+    @Autowired
+    private OrderGroupCommitter groupCommitter;
+
+    @Test
+    void concurrentOrdersShouldCommitTogether() {
+        Product shared = productRepository.save(new Product(null, 5, 20, ProductType.NORMAL, "Shared", null, null, null));
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            orderIds.add(orderRepository.save(new Order(null, Set.of(shared))).getId());
+        }
+
+        List<CompletableFuture<ProcessOrderResponse>> calls = processConcurrently(orderIds);
+
+        for (int i = 0; i < orderIds.size(); i++) {
+            assertEquals(orderIds.get(i), calls.get(i).join().id());
+        }
+        assertEquals(12, available(shared));
+        orderIds.forEach(id -> assertTrue(processedOrderRepository.existsById(id)));
+    }
+
+    @Test
+    void failingOrderShouldOnlyRollBackItself() {
+        Product normal = productRepository.save(new Product(null, 5, 10, ProductType.NORMAL, "Normal", null, null, null));
+        // Out of stock without a lead time: the delay check fails on the missing value
+        Product broken = productRepository.save(new Product(null, null, 0, ProductType.NORMAL, "Broken", null, null, null));
+        Long before = orderRepository.save(new Order(null, Set.of(normal))).getId();
+        Long failing = orderRepository.save(new Order(null, Set.of(normal, broken))).getId();
+        Long after = orderRepository.save(new Order(null, Set.of(normal))).getId();
+
+        List<CompletableFuture<ProcessOrderResponse>> calls = processConcurrently(List.of(before, failing, after));
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> calls.get(1).join());
+        assertInstanceOf(NullPointerException.class, failure.getCause());
+        calls.get(0).join();
+        calls.get(2).join();
+        assertEquals(8, available(normal));
+        assertFalse(processedOrderRepository.existsById(failing));
+        assertTrue(processedOrderRepository.existsById(before));
+        assertTrue(processedOrderRepository.existsById(after));
+    }
+
+    @Test
+    void unknownOrderShouldOnlyRollBackItsSavepoint() {
+        Product normal = productRepository.save(new Product(null, 5, 10, ProductType.NORMAL, "Savepoint", null, null, null));
+        Long before = orderRepository.save(new Order(null, Set.of(normal))).getId();
+        Long unknown = before + 1_000_000;
+        Long after = orderRepository.save(new Order(null, Set.of(normal))).getId();
+
+        List<CompletableFuture<ProcessOrderResponse>> calls = processConcurrently(List.of(before, unknown, after));
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> calls.get(1).join());
+        assertEquals("Order not found", failure.getCause().getMessage());
+        calls.get(0).join();
+        calls.get(2).join();
+        assertEquals(8, available(normal));
+        assertFalse(processedOrderRepository.existsById(unknown));
+    }
+
+    @Test
+    void failingOrdersShouldNotRunTheOthersMoreThanTwice() throws InterruptedException {
+        // A claim on an order that is already processed dooms the group transaction
+        Long taken = processedOrderRepository.save(new ProcessedOrder(9_000_000L, Instant.now())).getId();
+        List<Long> orderIds = List.of(9_000_001L, 9_000_002L, 9_000_003L, 9_000_004L, 9_000_005L);
+        Set<Long> failing = Set.of(9_000_002L, 9_000_004L);
+        List<AtomicInteger> runs = orderIds.stream().map(id -> new AtomicInteger()).toList();
+
+        List<CompletableFuture<ProcessOrderResponse>> calls = submitInOrder(orderIds, i -> () -> {
+            runs.get(i).incrementAndGet();
+            Long orderId = orderIds.get(i);
+            processedOrderRepository.saveAndFlush(new ProcessedOrder(failing.contains(orderId) ? taken : orderId, Instant.now()));
+            return new ProcessOrderResponse(orderId);
+        });
+
+        for (int i = 0; i < orderIds.size(); i++) {
+            Long orderId = orderIds.get(i);
+            if (failing.contains(orderId)) {
+                assertThrows(CompletionException.class, calls.get(i)::join);
+                assertEquals(1, runs.get(i).get());
+                assertFalse(processedOrderRepository.existsById(orderId));
+            } else {
+                assertEquals(orderId, calls.get(i).join().id());
+                assertTrue(runs.get(i).get() <= 2, "order " + orderId + " ran " + runs.get(i).get() + " times");
+                assertTrue(processedOrderRepository.existsById(orderId));
+            }
+        }
+    }
+
+    @Test
+    void processedOrderShouldBeAnsweredWithoutRunning() throws InterruptedException {
+        Long processed = processedOrderRepository.save(new ProcessedOrder(9_100_000L, Instant.now())).getId();
+        List<Long> orderIds = List.of(9_100_001L, processed, 9_100_002L);
+        List<AtomicInteger> runs = orderIds.stream().map(id -> new AtomicInteger()).toList();
+
+        List<CompletableFuture<ProcessOrderResponse>> calls = submitInOrder(orderIds, i -> () -> {
+            runs.get(i).incrementAndGet();
+            processedOrderRepository.saveAndFlush(new ProcessedOrder(orderIds.get(i), Instant.now()));
+            return new ProcessOrderResponse(orderIds.get(i));
+        });
+
+        for (int i = 0; i < orderIds.size(); i++) {
+            assertEquals(orderIds.get(i), calls.get(i).join().id());
+        }
+        assertEquals(List.of(1, 0, 1), runs.stream().map(AtomicInteger::get).toList());
+    }
+
+    // Submits the works one after the other, well within the window, so they form one group
+    // in this order
+    private List<CompletableFuture<ProcessOrderResponse>> submitInOrder(
+            List<Long> orderIds, IntFunction<Supplier<ProcessOrderResponse>> work)
+            throws InterruptedException {
+        ExecutorService callers = Executors.newFixedThreadPool(orderIds.size());
+        try {
+            List<CompletableFuture<ProcessOrderResponse>> calls = new ArrayList<>();
+            for (int i : IntStream.range(0, orderIds.size()).toArray()) {
+                calls.add(CompletableFuture.supplyAsync(() -> groupCommitter.submit(orderIds.get(i), work.apply(i)), callers));
+                Thread.sleep(5);
+            }
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            return calls;
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private List<CompletableFuture<ProcessOrderResponse>> processConcurrently(List<Long> orderIds) {
+        ExecutorService callers = Executors.newFixedThreadPool(orderIds.size());
+        try {
+            List<CompletableFuture<ProcessOrderResponse>> calls = orderIds.stream()
+                    .map(id -> CompletableFuture.supplyAsync(() -> orderProcessingService.processOrder(id), callers))
+                    .toList();
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            return calls;
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private int available(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getAvailable();
+    }
+}
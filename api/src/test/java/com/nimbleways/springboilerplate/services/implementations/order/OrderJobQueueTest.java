@@ -0,0 +1,75 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.OrderJob;
+import com.nimbleways.springboilerplate.repositories.OrderJobRepository;
+import com.nimbleways.springboilerplate.services.implementations.cluster.PartitionLeases;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@UnitTest
+class OrderJobQueueTest {
+
+    private final OrderJobRepository jobRepository = mock(OrderJobRepository.class);
+
+    @Mock
+    private ObjectProvider<PartitionLeases> leasesProvider;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void enqueueShouldRefuseJobsOnceQueueIsFull() {
+        OrderProcessingProperties properties = new OrderProcessingProperties();
+        properties.getAsync().setCapacity(2);
+        OrderJobQueue queue = new OrderJobQueue(jobRepository, properties, leasesProvider);
+        when(jobRepository.countByStatus(OrderJobStatus.QUEUED)).thenReturn(2L);
+
+        assertThrows(OrderQueueFullException.class, () -> queue.enqueue(1L));
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void enqueueShouldStoreQueuedJob() {
+        OrderJobQueue queue = new OrderJobQueue(jobRepository, new OrderProcessingProperties(), leasesProvider);
+        when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderJob job = queue.enqueue(7L);
+
+        assertEquals(7L, job.getOrderId());
+        assertEquals(OrderJobStatus.QUEUED, job.getStatus());
+    }
+
+    @Test
+    void inClusterModeJobsShouldBeRoutedToTheOwnerOfTheirPartition() {
+        PartitionLeases leases = mock(PartitionLeases.class);
+        when(leasesProvider.getIfAvailable()).thenReturn(leases);
+        when(leases.partitionOfOrder(7L)).thenReturn(3);
+        when(leases.owned()).thenReturn(Set.of(1, 2));
+        when(jobRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        OrderJobQueue queue = new OrderJobQueue(jobRepository, new OrderProcessingProperties(), leasesProvider);
+
+        assertEquals(3, queue.enqueue(7L).getPartition());
+        queue.claimNext();
+
+        verify(jobRepository).lockNextIn(eq(OrderJobStatus.QUEUED), eq(Set.of(1, 2)), any(Pageable.class));
+        verify(jobRepository, never()).lockNext(any(), any());
+    }
+}
@@ -0,0 +1,178 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProcessedOrderRepository;
+import com.nimbleways.springboilerplate.services.implementations.product.IProductProcessing;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductProcessingMetrics;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.stock.InMemoryStockEngine;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "stock.mode=in-memory",
+        "stock.in-memory.flush-interval=PT1H",
+        "orders.processing.parallel.enabled=true",
+        "orders.processing.parallel.threshold=10",
+        "orders.processing.parallel.pool-size=4"
+})
+class ParallelItemProcessorTest {
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProcessedOrderRepository processedOrderRepository;
+
+    @Autowired
+    private InMemoryStockEngine stockEngine;
+
+    @Test
+    void largeOrderShouldBeProcessedInParallelWithSameResults() {
+        List<Product> inStock = productRepository.saveAll(IntStream.range(0, 90)
+                .mapToObj(i -> new Product(null, 5, 3, ProductType.NORMAL, "Normal " + i, null, null, null))
+                .toList());
+        List<Product> expired = productRepository.saveAll(IntStream.range(0, 30)
+                .mapToObj(i -> new Product(null, 5, 4, ProductType.EXPIRABLE, "Expired " + i, LocalDate.now().minusDays(1), null, null))
+                .toList());
+        List<Product> items = new ArrayList<>(inStock);
+        items.addAll(expired);
+        Order order = orderRepository.save(new Order(null, new HashSet<>(items)));
+
+        orderProcessingService.processOrder(order.getId());
+
+        inStock.forEach(p -> assertEquals(2, available(p)));
+        expired.forEach(p -> assertEquals(0, available(p)));
+    }
+
+    @Test
+    void failingItemShouldRollBackEveryWorker() {
+        List<Product> inStock = productRepository.saveAll(IntStream.range(0, 40)
+                .mapToObj(i -> new Product(null, 5, 3, ProductType.NORMAL, "Normal " + i, null, null, null))
+                .toList());
+        // Out of stock without a lead time: the delay check fails on the missing value
+        Product broken = productRepository.save(new Product(null, null, 0, ProductType.NORMAL, "Broken", null, null, null));
+        List<Product> items = new ArrayList<>(inStock);
+        items.add(broken);
+        Order order = orderRepository.save(new Order(null, new HashSet<>(items)));
+
+        assertThrows(NullPointerException.class, () -> orderProcessingService.processOrder(order.getId()));
+
+        // The order transaction rolled back with the callbacks of every worker
+        inStock.forEach(p -> assertEquals(3, available(p)));
+        assertFalse(processedOrderRepository.existsById(order.getId()));
+    }
+
+    @Test
+    void chunksShouldBeReservedConcurrently() {
+        // Every reservation waits for the other chunks to be reserving too: run one after
+        // the other, the first one would time out and fail the order
+        CyclicBarrier everyChunkReserving = new CyclicBarrier(4);
+        List<Product> completed = Collections.synchronizedList(new ArrayList<>());
+        ParallelItemProcessor processor = new ParallelItemProcessor(
+                blockingReservations(everyChunkReserving, completed), parallel(4), inMemory());
+        List<Product> items = LongStream.rangeClosed(1, 40)
+                .mapToObj(id -> new Product(id, 5, 3, ProductType.NORMAL, "Normal " + id, null, null, null))
+                .toList();
+
+        try {
+            processor.process(items);
+        } finally {
+            processor.stop();
+        }
+
+        assertEquals(items.size(), completed.size());
+    }
+
+    @Test
+    void processorShouldRefuseToStartWithDatabaseStock() {
+        ProductRuleFactory factory = blockingReservations(new CyclicBarrier(1), new ArrayList<>());
+
+        assertThrows(IllegalStateException.class, () -> new ParallelItemProcessor(factory, parallel(4), new StockProperties()));
+    }
+
+    private static ProductRuleFactory blockingReservations(CyclicBarrier barrier, List<Product> completed) {
+        List<IProductProcessing> strategies = Arrays.stream(ProductType.values())
+                .map(type -> (IProductProcessing) new BlockingReservation(type, barrier, completed))
+                .toList();
+        return new ProductRuleFactory(strategies, new ProductProcessingMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static OrderProcessingProperties parallel(int poolSize) {
+        OrderProcessingProperties properties = new OrderProcessingProperties();
+        properties.getParallel().setPoolSize(poolSize);
+        return properties;
+    }
+
+    private static StockProperties inMemory() {
+        StockProperties stockProperties = new StockProperties();
+        stockProperties.setMode("in-memory");
+        return stockProperties;
+    }
+
+    private record BlockingReservation(ProductType type, CyclicBarrier barrier, List<Product> completed)
+            implements IProductProcessing {
+
+        @Override
+        public void process(Product product) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Long> reserve(List<Product> products) {
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException("Chunks were not reserved concurrently", e);
+            }
+            return products.stream().map(Product::getId).collect(Collectors.toSet());
+        }
+
+        @Override
+        public void complete(List<Product> products, Set<Long> reserved) {
+            completed.addAll(products);
+        }
+
+        @Override
+        public ProductType getType() {
+            return type;
+        }
+    }
+
+    private int available(Product product) {
+        stockEngine.flush();
+        return productRepository.findById(product.getId()).orElseThrow().getAvailable();
+    }
+}
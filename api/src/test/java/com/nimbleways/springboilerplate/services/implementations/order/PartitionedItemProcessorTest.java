@@ -0,0 +1,121 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.OutboxNotificationRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.product.ProductRuleFactory;
+import com.nimbleways.springboilerplate.services.implementations.stock.InMemoryStockEngine;
+import com.nimbleways.springboilerplate.services.implementations.stock.StockProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "stock.mode=in-memory",
+        "stock.in-memory.flush-interval=PT1H",
+        "orders.processing.partitioned.enabled=true",
+        "orders.processing.partitioned.partitions=4",
+        "notifications.dispatch.mode=outbox",
+        "notifications.dispatch.outbox.poll-interval=PT1H"
+})
+class PartitionedItemProcessorTest {
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private PartitionedItemProcessor partitionedItemProcessor;
+
+    @Autowired
+    private InMemoryStockEngine stockEngine;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OutboxNotificationRepository outboxRepository;
+
+    @Autowired
+    private ProductRuleFactory productRuleFactory;
+
+    @Test
+    void concurrentOrdersOnHotProductShouldNotOversell() {
+        Product hot = productRepository.save(new Product(null, 5, 30, ProductType.NORMAL, "Hot", null, null, null));
+        List<Product> others = productRepository.saveAll(IntStream.range(0, 8)
+                .mapToObj(i -> new Product(null, 5, 10, ProductType.NORMAL, "Other " + i, null, null, null))
+                .toList());
+        List<Long> orderIds = IntStream.range(0, 40)
+                .mapToObj(i -> orderRepository.save(new Order(null, Set.of(hot, others.get(i % others.size())))).getId())
+                .toList();
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CompletableFuture.allOf(orderIds.stream()
+                    .map(id -> CompletableFuture.runAsync(() -> orderProcessingService.processOrder(id), callers))
+                    .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            callers.shutdown();
+        }
+
+        assertEquals(0, stockEngine.available(hot.getId()));
+        others.forEach(p -> assertEquals(5, stockEngine.available(p.getId())));
+    }
+
+    @Test
+    void failingOrderShouldGiveBackStockOfEveryPartition() {
+        List<Product> inStock = productRepository.saveAll(IntStream.range(0, 8)
+                .mapToObj(i -> new Product(null, 5, 3, ProductType.NORMAL, "Normal " + i, null, null, null))
+                .toList());
+        // Out of stock without a lead time: the delay check fails on the missing value
+        Product broken = productRepository.save(new Product(null, null, 0, ProductType.NORMAL, "Broken", null, null, null));
+        List<Product> items = new ArrayList<>(inStock);
+        items.add(broken);
+        Order order = orderRepository.save(new Order(null, new HashSet<>(items)));
+
+        assertEquals(4, inStock.stream().map(p -> partitionedItemProcessor.partitionOf(p.getId())).distinct().count());
+        assertThrows(NullPointerException.class, () -> orderProcessingService.processOrder(order.getId()));
+
+        // Items queued behind the failing one were never touched, so the table is the reference
+        stockEngine.flush();
+        inStock.forEach(p -> assertEquals(3, productRepository.findById(p.getId()).orElseThrow().getAvailable()));
+    }
+
+    @Test
+    void outboxRowsOfAFailingOrderShouldBeRolledBack() {
+        outboxRepository.deleteAll();
+        Product delayed = productRepository.save(new Product(null, 5, 0, ProductType.NORMAL, "Delayed", null, null, null));
+        // Not in season yet and without an end date: the out-of-season check fails on it
+        Product broken = productRepository.save(new Product(null, 5, 0, ProductType.SEASONAL, "Broken season",
+                null, LocalDate.now().plusDays(3), null));
+        Order order = orderRepository.save(new Order(null, Set.of(delayed, broken)));
+
+        assertThrows(NullPointerException.class, () -> orderProcessingService.processOrder(order.getId()));
+
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void processorShouldRefuseToStartWithDatabaseStock() {
+        assertThrows(IllegalStateException.class, () -> new PartitionedItemProcessor(
+                productRuleFactory, new OrderProcessingProperties(), new StockProperties()));
+    }
+}
@@ -0,0 +1,109 @@
+package com.nimbleways.springboilerplate.services.implementations.order;
+
+import com.nimbleways.springboilerplate.dto.product.ProcessOrderResponse;
+import com.nimbleways.springboilerplate.repositories.ProcessedOrderRepository;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@UnitTest
+class ProcessedOrderRegistryTest {
+
+    private ProcessedOrderRepository repository;
+    private ProcessedOrderRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ProcessedOrderRepository.class);
+        registry = new ProcessedOrderRegistry(repository, new OrderProcessingProperties());
+    }
+
+    @Test
+    void concurrentCallsShouldShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ProcessOrderResponse>> calls = new ArrayList<>();
+            calls.add(pool.submit(() -> registry.processOnce(1L, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return new ProcessOrderResponse(1L);
+            })));
+            started.await();
+            for (int i = 0; i < 3; i++) {
+                calls.add(pool.submit(() -> registry.processOnce(1L, () -> {
+                    executions.incrementAndGet();
+                    return new ProcessOrderResponse(1L);
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            ProcessOrderResponse first = calls.get(0).get();
+            for (Future<ProcessOrderResponse> call : calls) {
+                assertSame(first, call.get());
+            }
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void repeatedCallShouldBeAnsweredFromCache() {
+        AtomicInteger executions = new AtomicInteger();
+
+        registry.processOnce(2L, () -> new ProcessOrderResponse((long) executions.incrementAndGet()));
+        ProcessOrderResponse repeated = registry.processOnce(2L,
+                () -> new ProcessOrderResponse((long) executions.incrementAndGet()));
+
+        assertEquals(new ProcessOrderResponse(1L), repeated);
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void duplicateMarkerShouldReturnStoredResponse() {
+        when(repository.existsById(3L)).thenReturn(true);
+
+        ProcessOrderResponse response = registry.processOnce(3L, () -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        });
+
+        assertEquals(new ProcessOrderResponse(3L), response);
+    }
+
+    @Test
+    void failureShouldNotBeCached() {
+        assertThrows(IllegalStateException.class, () -> registry.processOnce(4L, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(new ProcessOrderResponse(4L), registry.processOnce(4L, () -> new ProcessOrderResponse(4L)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.nimbleways.springboilerplate.services.implementations.product;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@UnitTest
+class ProductRuleFactoryTest {
+
+    private final ProductProcessingMetrics metrics = new ProductProcessingMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void shouldDispatchEachTypeToItsStrategy() {
+        List<IProductProcessing> strategies = List.of(
+                strategy(ProductType.EXPIRABLE), strategy(ProductType.NORMAL), strategy(ProductType.SEASONAL));
+        ProductRuleFactory factory = new ProductRuleFactory(strategies, metrics);
+        Product product = new Product();
+
+        for (IProductProcessing strategy : strategies) {
+            IProductProcessing dispatched = factory.getStrategy(strategy.getType());
+            assertEquals(strategy.getType(), dispatched.getType());
+            dispatched.process(product);
+            verify(strategy).process(product);
+        }
+    }
+
+    @Test
+    void shouldFailFastWhenATypeHasNoStrategy() {
+        List<IProductProcessing> strategies = List.of(strategy(ProductType.NORMAL), strategy(ProductType.SEASONAL));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new ProductRuleFactory(strategies, metrics));
+
+        assertEquals("No strategy for types [EXPIRABLE]", exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectTwoStrategiesForTheSameType() {
+        List<IProductProcessing> strategies = List.of(strategy(ProductType.NORMAL), strategy(ProductType.NORMAL));
+
+        assertThrows(IllegalStateException.class, () -> new ProductRuleFactory(strategies, metrics));
+    }
+
+    private static IProductProcessing strategy(ProductType type) {
+        IProductProcessing strategy = mock(IProductProcessing.class);
+        when(strategy.getType()).thenReturn(type);
+        return strategy;
+    }
+}
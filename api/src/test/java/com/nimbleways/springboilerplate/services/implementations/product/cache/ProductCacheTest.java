@@ -0,0 +1,95 @@
+package com.nimbleways.springboilerplate.services.implementations.product.cache;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = {
+        "products.cache.enabled=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductCacheTest {
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Test
+    void secondOrderShouldTakeProductsFromCacheAndSeeCommittedStock() {
+        List<Product> products = productRepository.saveAll(List.of(
+                new Product(null, 5, 10, ProductType.NORMAL, "Cached Cable", null, null, null),
+                new Product(null, 5, 10, ProductType.EXPIRABLE, "Cached Butter", LocalDate.now().plusDays(10), null, null),
+                new Product(null, 5, 3, ProductType.EXPIRABLE, "Cached Milk", LocalDate.now().minusDays(1), null, null)));
+        Order first = orderRepository.save(new Order(null, new HashSet<>(products)));
+        // The expired product is cleared, hence evicted, by the first order
+        Order second = orderRepository.save(new Order(null, new HashSet<>(products.subList(0, 2))));
+
+        orderProcessingService.processOrder(first.getId());
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        orderProcessingService.processOrder(second.getId());
+
+        assertEquals(0, statistics.getEntityStatistics(Product.class.getName()).getLoadCount());
+        assertAvailable(products.get(0), 8);
+        assertAvailable(products.get(1), 8);
+        assertEquals(0, productRepository.findById(products.get(2).getId()).orElseThrow().getAvailable());
+        assertNull(productCache.getIfPresent(products.get(2).getId()));
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", "products").tag("result", "hit").functionCounter());
+    }
+
+    @Test
+    void productWrittenThroughRepositoryShouldBeEvicted() {
+        Product product = productRepository.save(new Product(null, 5, 10, ProductType.NORMAL, "Cached Hub", null, null, null));
+        Order order = orderRepository.save(new Order(null, new HashSet<>(List.of(product))));
+        orderProcessingService.processOrder(order.getId());
+        assertNotNull(productCache.getIfPresent(product.getId()));
+
+        Product loaded = productRepository.findById(product.getId()).orElseThrow();
+        loaded.setLeadTime(7);
+        productRepository.save(loaded);
+
+        assertNull(productCache.getIfPresent(product.getId()));
+    }
+
+    private void assertAvailable(Product product, int expected) {
+        assertEquals(expected, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+        assertEquals(expected, productCache.getIfPresent(product.getId()).available());
+    }
+}
@@ -0,0 +1,46 @@
+package com.nimbleways.springboilerplate.services.implementations.product.importer;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@UnitTest
+class CsvRowParserTest {
+
+    @Test
+    void shouldSplitQuotedFields() {
+        assertEquals(List.of("1", "Cable, \"long\"", ""), CsvRowParser.split("1,\"Cable, \"\"long\"\"\","));
+        assertThrows(IllegalArgumentException.class, () -> CsvRowParser.split("1,\"Cable"));
+    }
+
+    @Test
+    void shouldMatchColumnsByHeaderName() {
+        CsvRowParser parser = new CsvRowParser("type,name,available,leadTime,expiryDate");
+
+        Product product = parser.parse("expirable,Milk,4,2,2030-01-31").toProduct();
+
+        assertNull(product.getId());
+        assertEquals(ProductType.EXPIRABLE, product.getType());
+        assertEquals("Milk", product.getName());
+        assertEquals(4, product.getAvailable());
+        assertEquals(LocalDate.of(2030, 1, 31), product.getExpiryDate());
+    }
+
+    @Test
+    void shouldRejectInvalidRows() {
+        CsvRowParser parser = new CsvRowParser("name,type,available,leadTime");
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("Milk,expirable,4,2").toProduct());
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("Cable,normal,-1,2").toProduct());
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("Cable,unknown,1,2").toProduct());
+        assertThrows(IllegalArgumentException.class, () -> new CsvRowParser("name,type"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.nimbleways.springboilerplate.services.implementations.product.sweep;
+
+import com.nimbleways.springboilerplate.dto.product.ProductSummary;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "products.sweep.enabled=true",
+        "products.sweep.chunk-size=2"
+})
+class ProductSweepJobTest {
+
+    @Autowired
+    private ProductSweepJob sweepJob;
+
+    @SpyBean
+    private ProductRepository productRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Test
+    void sweepShouldClearExpiredAndOutOfSeasonProductsInChunks() {
+        LocalDate today = LocalDate.now();
+        List<Product> expired = productRepository.saveAll(IntStream.range(0, 5)
+                .mapToObj(i -> new Product(null, 5, 4, ProductType.EXPIRABLE, "Sweep Milk " + i, today.minusDays(i), null, null))
+                .toList());
+        Product fresh = productRepository.save(new Product(null, 5, 4, ProductType.EXPIRABLE, "Sweep Butter", today.plusDays(1), null, null));
+        Product ended = productRepository.save(new Product(null, 5, 6, ProductType.SEASONAL, "Sweep Melon", null, today.minusDays(60), today.minusDays(1)));
+        Product upcoming = productRepository.save(new Product(null, 5, 6, ProductType.SEASONAL, "Sweep Pumpkin", null, today.plusDays(10), today.plusDays(60)));
+
+        sweepJob.sweep(today);
+
+        expired.forEach(p -> {
+            assertEquals(0, available(p));
+            verify(notificationService).sendExpirationNotification(p.getName(), p.getExpiryDate());
+        });
+        assertEquals(0, available(ended));
+        verify(notificationService).sendOutOfStockNotification("Sweep Melon");
+        assertEquals(4, available(fresh));
+        assertEquals(6, available(upcoming));
+        verify(notificationService, never()).sendExpirationNotification(eq("Sweep Butter"), eq(fresh.getExpiryDate()));
+        verify(notificationService, never()).sendOutOfStockNotification("Sweep Pumpkin");
+    }
+
+    @Test
+    void sweepShouldNotNotifyProductsSoldOutSinceTheSelect() {
+        LocalDate today = LocalDate.now();
+        // Selected while in stock, then sold out by an order before the sweep update
+        Product soldOut = productRepository.save(new Product(null, 5, 0, ProductType.EXPIRABLE, "Sweep Cream", today.minusDays(1), null, null));
+        doReturn(List.of(new ProductSummary(soldOut.getId(), soldOut.getName(), ProductType.EXPIRABLE, 1, 5,
+                soldOut.getExpiryDate(), null, null)))
+                .when(productRepository).findExpiredInStock(any(), any(), eq(0L), any());
+
+        sweepJob.sweep(today);
+
+        assertEquals(0, available(soldOut));
+        verify(notificationService, never()).sendExpirationNotification(eq("Sweep Cream"), any());
+    }
+
+    private int available(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getAvailable();
+    }
+}
@@ -0,0 +1,151 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryStockEngineTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private InMemoryStockEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:stock-engine;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("create table products (id bigint primary key, available int)");
+        jdbcTemplate.update("insert into products values (1, 2), (2, 5), (3, 0)");
+
+        StockProperties properties = new StockProperties();
+        properties.getInMemory().setFlushInterval(Duration.ofHours(1));
+        engine = new InMemoryStockEngine(jdbcTemplate, properties);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+        jdbcTemplate.execute("drop table products");
+    }
+
+    @Test
+    void shouldRebuildFromTableAndDecrementInMemory() {
+        assertTrue(engine.tryDecrement(product(1L, 99)));
+        assertTrue(engine.tryDecrement(product(1L, 99)));
+        assertFalse(engine.tryDecrement(product(1L, 99)));
+        assertFalse(engine.tryDecrement(product(3L, 99)));
+
+        assertEquals(0, engine.available(1L));
+        assertEquals(2, availableInTable(1L));
+    }
+
+    @Test
+    void flushShouldWriteOnlyChangedCounters() {
+        engine.tryDecrement(product(2L, 5));
+        jdbcTemplate.update("update products set available = 7 where id = 1");
+
+        engine.flush();
+
+        assertEquals(4, availableInTable(2L));
+        assertEquals(7, availableInTable(1L));
+    }
+
+    @Test
+    void clearAndRulesShouldBeEvaluatedAgainstProductDates() {
+        LocalDate today = LocalDate.now();
+        Product expired = product(2L, 5);
+        expired.setExpiryDate(today.minusDays(1));
+        Product offSeason = product(2L, 5);
+        offSeason.setSeasonStartDate(today.plusDays(1));
+        offSeason.setSeasonEndDate(today.plusDays(10));
+
+        assertFalse(engine.tryDecrementIfNotExpired(expired, today));
+        assertFalse(engine.tryDecrementIfInSeason(offSeason, today));
+        engine.clear(expired);
+        engine.flush();
+
+        assertEquals(0, availableInTable(2L));
+    }
+
+    @Test
+    void unknownProductShouldBeSeededFromLoadedEntity() {
+        jdbcTemplate.update("insert into products values (4, 1)");
+
+        assertTrue(engine.tryDecrement(product(4L, 1)));
+        engine.flush();
+
+        assertEquals(0, availableInTable(4L));
+    }
+
+    @Test
+    void restockedProductsShouldTakeTheImportedStock() {
+        engine.tryDecrement(product(2L, 5));
+        jdbcTemplate.update("update products set available = 20 where id = 2");
+
+        engine.restocked(Map.of(2L, 20));
+        engine.flush();
+
+        assertEquals(20, engine.available(2L));
+        assertEquals(20, availableInTable(2L));
+        assertTrue(engine.tryDecrement(product(2L, 20)));
+    }
+
+    @Test
+    void rolledBackChangesShouldGiveTheStockBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        engine.tryDecrement(product(2L, 5));
+        engine.clear(product(1L, 2));
+
+        rollBack();
+
+        assertEquals(5, engine.available(2L));
+        assertEquals(2, engine.available(1L));
+    }
+
+    @Test
+    void rolledBackClearShouldNotAddToStockRestockedSince() {
+        TransactionSynchronizationManager.initSynchronization();
+        engine.clear(product(2L, 5));
+        engine.tryDecrement(product(1L, 2));
+        // An import commits on another thread before the order's transaction rolls back
+        CompletableFuture.runAsync(() -> engine.restocked(Map.of(2L, 20, 1L, 10))).join();
+
+        rollBack();
+
+        assertEquals(20, engine.available(2L));
+        assertEquals(10, engine.available(1L));
+    }
+
+    private static void rollBack() {
+        try {
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private int availableInTable(long id) {
+        return jdbcTemplate.queryForObject("select available from products where id = ?", Integer.class, id);
+    }
+
+    private static Product product(Long id, int available) {
+        Product product = new Product();
+        product.setId(id);
+        product.setAvailable(available);
+        return product;
+    }
+}
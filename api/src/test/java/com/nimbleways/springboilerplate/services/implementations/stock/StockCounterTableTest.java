@@ -0,0 +1,74 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.utils.Annotations.UnitTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@UnitTest
+class StockCounterTableTest {
+
+    @Test
+    void shouldKeepCountersAcrossResizes() {
+        StockCounterTable table = new StockCounterTable(4);
+        List<StockCounter> inserted = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            final int available = (int) id;
+            inserted.add(table.computeIfAbsent(id, () -> available));
+        }
+
+        assertEquals(1000, table.size());
+        for (StockCounter counter : inserted) {
+            assertSame(counter, table.get(counter.productId()));
+            assertEquals(counter.productId(), counter.available());
+        }
+        assertNull(table.get(1001));
+    }
+
+    @Test
+    void computeIfAbsentShouldKeepFirstCounter() {
+        StockCounterTable table = new StockCounterTable(16);
+        StockCounter first = table.computeIfAbsent(7, () -> 3);
+
+        assertSame(first, table.computeIfAbsent(7, () -> 99));
+        assertEquals(3, table.get(7).available());
+    }
+
+    @Test
+    void concurrentDecrementsShouldStopAtZero() throws Exception {
+        StockCounterTable table = new StockCounterTable(16);
+        table.computeIfAbsent(42, () -> 500);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                int succeeded = 0;
+                for (int i = 0; i < 100; i++) {
+                    // Keep inserting while decrementing so lookups race with resizes
+                    table.computeIfAbsent(1000L + Thread.currentThread().getId() * 1000 + i, () -> 1);
+                    if (table.get(42).tryDecrement()) {
+                        succeeded++;
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        pool.shutdown();
+
+        assertEquals(500, total);
+        assertEquals(0, table.get(42).available());
+    }
+}
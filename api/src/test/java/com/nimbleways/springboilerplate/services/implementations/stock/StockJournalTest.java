@@ -0,0 +1,137 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:stock-journal;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("create table products (id bigint primary key, available int)");
+        jdbcTemplate.update("insert into products values (1, 2), (2, 5), (3, 1)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table products");
+    }
+
+    @Test
+    void restartShouldRecoverStockFromJournalInsteadOfTable() {
+        InMemoryStockEngine crashed = start(1000);
+        crashed.tryDecrement(product(1L, 2));
+        crashed.flush();
+        crashed.tryDecrement(product(1L, 2));
+        crashed.clear(product(2L, 5));
+        // Not in the table when the engine started: seeded from the entity
+        jdbcTemplate.update("insert into products values (4, 3)");
+        crashed.tryDecrement(product(4L, 3));
+
+        // The table lags behind: the last changes were never flushed
+        InMemoryStockEngine restarted = start(1000);
+
+        assertEquals(0, restarted.available(1L));
+        assertEquals(0, restarted.available(2L));
+        assertEquals(1, restarted.available(3L));
+        assertEquals(2, restarted.available(4L));
+
+        // Recovered counters are replayed into the table
+        restarted.flush();
+        assertEquals(List.of(0, 0, 1, 2), jdbcTemplate.queryForList("select available from products order by id", Integer.class));
+    }
+
+    @Test
+    void rowsChangedWhileTheEngineWasDownShouldTakeTheTableStock() {
+        InMemoryStockEngine crashed = start(1000);
+        crashed.tryDecrement(product(1L, 2));
+        crashed.tryDecrement(product(2L, 5));
+        crashed.flush();
+        crashed.snapshot();
+        crashed.tryDecrement(product(2L, 5));
+
+        // Restocked by hand before the restart
+        jdbcTemplate.update("update products set available = 40 where id = 2");
+        InMemoryStockEngine restarted = start(1000);
+
+        assertEquals(1, restarted.available(1L));
+        assertEquals(40, restarted.available(2L));
+        assertEquals(1, restarted.available(3L));
+        restarted.flush();
+        assertEquals(40, availableInTable(2L));
+    }
+
+    @Test
+    void fullJournalShouldBeSnapshottedAndTruncated() throws IOException {
+        InMemoryStockEngine crashed = start(4);
+        for (int i = 0; i < 5; i++) {
+            crashed.tryDecrement(product(2L, 5));
+        }
+        crashed.tryDecrement(product(3L, 1));
+        crashed.tryDecrement(product(1L, 2));
+
+        // One snapshot and one journal are left after each snapshot
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        InMemoryStockEngine restarted = start(4);
+
+        assertEquals(1, restarted.available(1L));
+        assertEquals(0, restarted.available(2L));
+        assertEquals(0, restarted.available(3L));
+    }
+
+    @Test
+    void stoppedEngineShouldLeaveNothingToReplay() {
+        InMemoryStockEngine stopped = start(1000);
+        stopped.tryDecrement(product(2L, 5));
+        stopped.stop();
+
+        InMemoryStockEngine restarted = start(1000);
+
+        assertEquals(4, restarted.available(2L));
+        assertEquals(4, availableInTable(2L));
+    }
+
+    private InMemoryStockEngine start(int maxRecords) {
+        StockProperties properties = new StockProperties();
+        properties.getInMemory().setFlushInterval(Duration.ofHours(1));
+        properties.getInMemory().getJournal().setEnabled(true);
+        properties.getInMemory().getJournal().setDirectory(directory.toString());
+        properties.getInMemory().getJournal().setMaxRecords(maxRecords);
+        properties.getInMemory().getJournal().setSnapshotInterval(Duration.ofHours(1));
+        InMemoryStockEngine engine = new InMemoryStockEngine(jdbcTemplate, properties);
+        engine.start();
+        return engine;
+    }
+
+    private int availableInTable(long id) {
+        return jdbcTemplate.queryForObject("select available from products where id = ?", Integer.class, id);
+    }
+
+    private static Product product(Long id, int available) {
+        Product product = new Product();
+        product.setId(id);
+        product.setAvailable(available);
+        return product;
+    }
+}
@@ -0,0 +1,182 @@
+package com.nimbleways.springboilerplate.services.implementations.stock;
+
+import com.nimbleways.springboilerplate.entities.Order;
+import com.nimbleways.springboilerplate.entities.Product;
+import com.nimbleways.springboilerplate.entities.ProductStockShard;
+import com.nimbleways.springboilerplate.enums.ProductType;
+import com.nimbleways.springboilerplate.repositories.OrderRepository;
+import com.nimbleways.springboilerplate.repositories.ProductRepository;
+import com.nimbleways.springboilerplate.repositories.ProductStockShardRepository;
+import com.nimbleways.springboilerplate.services.implementations.NotificationService;
+import com.nimbleways.springboilerplate.services.implementations.order.OrderProcessingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "stock.sharding.enabled=true",
+        "stock.sharding.slots=4",
+        "stock.sharding.rebalance-interval=PT1H"
+})
+class StockShardsTest {
+
+    @Autowired
+    private StockShards stockShards;
+
+    @Autowired
+    private IStockLedger stockLedger;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockShardRepository shardRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderProcessingService orderProcessingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Test
+    void concurrentDecrementsOfShardedProductShouldNeverOversell() throws Exception {
+        Product product = productRepository.save(new Product(null, 0, 30, ProductType.NORMAL, "Sharded TV", null, null, null));
+        stockShards.shard(product.getId());
+        assertEquals(List.of(8, 8, 7, 7), slots(product));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            results.add(pool.submit(() -> transactionTemplate.execute(status -> stockLedger.tryDecrement(product))));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            succeeded += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertEquals(30, succeeded);
+        assertEquals(0, stockShards.available(product.getId()));
+        stockShards.rebalance();
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+    }
+
+    @Test
+    void ordersOnShardedProductsShouldKeepBusinessResults() {
+        LocalDate today = LocalDate.now();
+        Product normal = productRepository.save(new Product(null, 5, 40, ProductType.NORMAL, "Sharded Cable", null, null, null));
+        Product expired = productRepository.save(new Product(null, 5, 40, ProductType.EXPIRABLE, "Sharded Milk", today.minusDays(1), null, null));
+        Product inSeason = productRepository.save(new Product(null, 5, 40, ProductType.SEASONAL, "Sharded Melon", null, today.minusDays(3), today.plusDays(30)));
+        List.of(normal, expired, inSeason).forEach(p -> stockShards.shard(p.getId()));
+        Order order = orderRepository.save(new Order(null, Set.of(normal, expired, inSeason)));
+
+        orderProcessingService.processOrder(order.getId());
+
+        assertEquals(39, stockShards.available(normal.getId()));
+        assertEquals(0, stockShards.available(expired.getId()));
+        assertEquals(39, stockShards.available(inSeason.getId()));
+        stockShards.rebalance();
+        assertEquals(39, productRepository.findById(normal.getId()).orElseThrow().getAvailable());
+        assertEquals(0, productRepository.findById(expired.getId()).orElseThrow().getAvailable());
+        assertEquals(List.of(10, 10, 10, 9), slots(normal));
+    }
+
+    @Test
+    void lowStockShouldBeMergedIntoOneSlotAndUnshardedBack() {
+        Product product = productRepository.save(new Product(null, 0, 10, ProductType.NORMAL, "Sharded Hub", null, null, null));
+        stockShards.shard(product.getId());
+
+        stockShards.rebalance();
+        assertEquals(List.of(10, 0, 0, 0), slots(product));
+
+        stockShards.unshard(product.getId());
+        assertTrue(slots(product).isEmpty());
+        assertEquals(10, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+    }
+
+    @Test
+    void restockedShardedProductShouldSplitTheImportedStockAcrossItsSlots() {
+        Product product = productRepository.save(new Product(null, 0, 12, ProductType.NORMAL, "Sharded Dock", null, null, null));
+        stockShards.shard(product.getId());
+
+        transactionTemplate.executeWithoutResult(status -> stockLedger.restocked(Map.of(product.getId(), 50)));
+
+        assertEquals(List.of(13, 13, 12, 12), slots(product));
+        assertEquals(50, stockShards.available(product.getId()));
+    }
+
+    @Test
+    void productShardedByAnotherNodeShouldBeDecrementedThroughItsSlots() {
+        Product product = productRepository.save(new Product(null, 0, 2, ProductType.NORMAL, "Remote Sharded Hub", null, null, null));
+        shardRepository.saveAll(List.of(
+                new ProductStockShard(product.getId(), 0, 1),
+                new ProductStockShard(product.getId(), 1, 0)));
+        // Seen by this node at its next check
+        stockShards.expireShardsCheck();
+
+        Set<Long> decremented = transactionTemplate.execute(status -> stockLedger.tryDecrementAll(List.of(product)));
+        Boolean decrementedAgain = transactionTemplate.execute(status -> stockLedger.tryDecrement(product));
+
+        assertEquals(Set.of(product.getId()), decremented);
+        assertFalse(decrementedAgain);
+
+        assertEquals(List.of(0, 0), slots(product));
+        assertEquals(2, productRepository.findById(product.getId()).orElseThrow().getAvailable());
+    }
+
+    @Test
+    void productShardedElsewhereShouldNotBeDecrementedThroughTheTableBeforeTheNextCheck() {
+        shardRepository.deleteAllInBatch();
+        stockShards.expireShardsCheck();
+        assertFalse(stockShards.anySharded());
+        Product remote = productRepository.save(new Product(null, 0, 5, ProductType.NORMAL, "Remote Sharded Lamp", null, null, null));
+        Product plain = productRepository.save(new Product(null, 0, 5, ProductType.NORMAL, "Plain Lamp", null, null, null));
+        shardRepository.saveAll(List.of(
+                new ProductStockShard(remote.getId(), 0, 3),
+                new ProductStockShard(remote.getId(), 1, 2)));
+
+        Set<Long> beforeCheck = transactionTemplate.execute(status -> stockLedger.tryDecrementAll(List.of(remote, plain)));
+        Boolean singleBeforeCheck = transactionTemplate.execute(status -> stockLedger.tryDecrement(remote));
+
+        // Skipped by the conditional updates of the table, so never oversold
+        assertEquals(Set.of(plain.getId()), beforeCheck);
+        assertFalse(singleBeforeCheck);
+        assertEquals(5, productRepository.findById(remote.getId()).orElseThrow().getAvailable());
+
+        stockShards.expireShardsCheck();
+        Set<Long> afterCheck = transactionTemplate.execute(status -> stockLedger.tryDecrementAll(List.of(remote, plain)));
+
+        assertEquals(Set.of(remote.getId(), plain.getId()), afterCheck);
+        assertEquals(4, stockShards.available(remote.getId()));
+        assertEquals(3, productRepository.findById(plain.getId()).orElseThrow().getAvailable());
+    }
+
+    private List<Integer> slots(Product product) {
+        return shardRepository.findAll().stream()
+                .filter(s -> s.getProductId().equals(product.getId()))
+                .sorted((a, b) -> a.getSlot() - b.getSlot())
+                .map(ProductStockShard::getAvailable)
+                .toList();
+    }
+}